@@ -13,43 +13,194 @@
 
 package pt.up.fe.comp.jmm.ast;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
 import pt.up.fe.specs.util.SpecsCheck;
 
+/**
+ * Base node that keeps its attributes in a compact layout instead of a map.
+ * 
+ * <p>
+ * Attributes are kept in two small parallel arrays, searched linearly, since nodes have only a few attributes. The
+ * attributes 'line' and 'column' are kept as ints when their values are numbers, and are only converted to Strings
+ * when read through {@link #get(String)}. Attribute names are interned, as the same few names repeat on every node,
+ * so most lookups succeed on the reference comparison.
+ */
 public abstract class AJmmNode implements JmmNode {
 
-    private final Map<String, String> attributes = new HashMap<>();
+    private static final String[] NO_ATTRIBUTES = new String[0];
 
-    protected Map<String, String> getAttributesMap() {
-        return attributes;
-    }
+    private static final String LINE = "line";
+    private static final String COLUMN = "column";
+
+    private String[] attributeNames = NO_ATTRIBUTES;
+    // A null value means the value is in one of the int fields below
+    private String[] attributeValues = NO_ATTRIBUTES;
+    private int numAttributes;
+
+    private int line;
+    private int column;
 
     @Override
     public String getKind() {
         return this.getClass().getSimpleName();
     }
 
+    /**
+     * @return a read-only view of the attribute names, in the order they were added. The view is only valid until
+     *         attributes are added to or removed from the node
+     */
     @Override
     public List<String> getAttributes() {
-        return new ArrayList<>(attributes.keySet());
+        return Collections.unmodifiableList(Arrays.asList(attributeNames).subList(0, numAttributes));
+    }
+
+    private int indexOf(String attribute) {
+        for (int i = 0; i < numAttributes; i++) {
+            String name = attributeNames[i];
+            if (name == attribute || name.equals(attribute)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private int getOrAddIndex(String attribute) {
+        int index = indexOf(attribute);
+        if (index != -1) {
+            return index;
+        }
+
+        if (numAttributes == attributeNames.length) {
+            int capacity = Math.max(4, numAttributes * 2);
+            attributeNames = Arrays.copyOf(attributeNames, capacity);
+            attributeValues = Arrays.copyOf(attributeValues, capacity);
+        }
+
+        attributeNames[numAttributes] = attribute.intern();
+        return numAttributes++;
     }
 
     @Override
     public void put(String attribute, String value) {
-        attributes.put(attribute, value);
+        if (LINE.equals(attribute) || COLUMN.equals(attribute)) {
+            Integer position = parsePosition(value);
+            if (position != null) {
+                putPosition(attribute, position);
+                return;
+            }
+        }
+
+        int index = getOrAddIndex(attribute);
+        attributeValues[index] = value;
+
+        // Values are never null, as with a map a null value is the same as no value
+        if (value == null) {
+            removeAttribute(index);
+        }
+    }
+
+    private static Integer parsePosition(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void putPosition(String attribute, int value) {
+        int index = getOrAddIndex(attribute);
+        attributeValues[index] = null;
+
+        if (LINE.equals(attribute)) {
+            line = value;
+        } else {
+            column = value;
+        }
+    }
+
+    private void removeAttribute(int index) {
+        numAttributes--;
+        System.arraycopy(attributeNames, index + 1, attributeNames, index, numAttributes - index);
+        System.arraycopy(attributeValues, index + 1, attributeValues, index, numAttributes - index);
+        attributeNames[numAttributes] = null;
+        attributeValues[numAttributes] = null;
+    }
+
+    private String getValue(int index) {
+        String value = attributeValues[index];
+        if (value != null) {
+            return value;
+        }
+
+        return Integer.toString(LINE.equals(attributeNames[index]) ? line : column);
     }
 
     @Override
     public String get(String attribute) {
-        var value = this.attributes.get(attribute);
+        int index = indexOf(attribute);
+        var value = index != -1 ? getValue(index) : null;
 
         SpecsCheck.checkNotNull(value, () -> "Node " + toString() + " does not contain attribute '" + attribute + "'");
 
         return value;
     }
 
+    @Override
+    public Optional<String> getOptional(String attribute) {
+        int index = indexOf(attribute);
+        return index != -1 ? Optional.of(getValue(index)) : Optional.empty();
+    }
+
+    @Override
+    public boolean hasAttribute(String attribute) {
+        return indexOf(attribute) != -1;
+    }
+
+    @Override
+    public int getLine() {
+        return getPosition(LINE);
+    }
+
+    @Override
+    public int getColumn() {
+        return getPosition(COLUMN);
+    }
+
+    private int getPosition(String attribute) {
+        int index = indexOf(attribute);
+        if (index != -1 && attributeValues[index] == null) {
+            return LINE.equals(attribute) ? line : column;
+        }
+
+        // Not a number, or missing: fails in the same way as before
+        return Integer.parseInt(get(attribute));
+    }
+
+    @Override
+    public void putLineCol(int line, int column) {
+        putPosition(LINE, line);
+        putPosition(COLUMN, column);
+    }
+
+    /**
+     * Replaces the attributes of this node with a copy of the attributes of the given node.
+     * 
+     * @param node
+     */
+    protected void copyAttributes(AJmmNode node) {
+        attributeNames = Arrays.copyOf(node.attributeNames, node.numAttributes);
+        attributeValues = Arrays.copyOf(node.attributeValues, node.numAttributes);
+        numAttributes = node.numAttributes;
+        line = node.line;
+        column = node.column;
+    }
 }
@@ -1,5 +1,6 @@
 package pt.up.fe.comp.jmm.ast;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiFunction;
@@ -18,9 +19,23 @@ public abstract class AJmmVisitor<D, R> implements JmmVisitor<D, R> {
     private final Map<String, BiFunction<JmmNode, D, R>> visitMap;
     private BiFunction<JmmNode, D, R> defaultVisit;
 
+    // Visit methods indexed by the id of the node kind (see NodeKinds), null where there is no visit method
+    private BiFunction<JmmNode, D, R>[] visitTable;
+
+    /**
+     * 
+     * @param visitMap
+     *            the visit methods, read when the visitor is created. Use {@link #addVisit(String, BiFunction)} to add
+     *            visit methods afterwards
+     * @param defaultVisit
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     public AJmmVisitor(Map<String, BiFunction<JmmNode, D, R>> visitMap, BiFunction<JmmNode, D, R> defaultVisit) {
         this.visitMap = visitMap;
         this.defaultVisit = defaultVisit;
+        this.visitTable = new BiFunction[0];
+
+        visitMap.forEach(this::addToTable);
     }
 
     public AJmmVisitor() {
@@ -42,6 +57,17 @@ public abstract class AJmmVisitor<D, R> implements JmmVisitor<D, R> {
     @Override
     public void addVisit(String kind, BiFunction<JmmNode, D, R> method) {
         this.visitMap.put(kind, method);
+        addToTable(kind, method);
+    }
+
+    private void addToTable(String kind, BiFunction<JmmNode, D, R> method) {
+        int kindId = NodeKinds.getId(kind);
+
+        if (kindId >= visitTable.length) {
+            visitTable = Arrays.copyOf(visitTable, kindId + 1);
+        }
+
+        visitTable[kindId] = method;
     }
 
     @Override
@@ -63,11 +89,20 @@ public abstract class AJmmVisitor<D, R> implements JmmVisitor<D, R> {
      * @return the visit method to use, or default if no visit method was found
      */
     protected BiFunction<JmmNode, D, R> getVisit(String kind) {
-        var visitMethod = visitMap.get(kind);
+        return getVisit(NodeKinds.getId(kind));
+    }
+
+    /**
+     * 
+     * @param kindId
+     * @return the visit method to use, or default if no visit method was found
+     */
+    protected BiFunction<JmmNode, D, R> getVisit(int kindId) {
+        var visitMethod = kindId < visitTable.length ? visitTable[kindId] : null;
 
         if (visitMethod == null) {
             SpecsCheck.checkNotNull(defaultVisit,
-                    () -> "No default visitor is set, could not visit node of kind " + kind);
+                    () -> "No default visitor is set, could not visit node of kind " + NodeKinds.getKind(kindId));
 
             visitMethod = defaultVisit;
         }
@@ -79,12 +114,12 @@ public abstract class AJmmVisitor<D, R> implements JmmVisitor<D, R> {
     public R visit(JmmNode jmmNode, D data) {
         SpecsCheck.checkNotNull(jmmNode, () -> "Node should not be null");
 
-        return getVisit(jmmNode.getKind()).apply(jmmNode, data);
+        return getVisit(jmmNode.getKindId()).apply(jmmNode, data);
     }
 
     protected R visitAllChildren(JmmNode node, D data) {
-        for (var child : node.getChildren()) {
-            visit(child, data);
+        for (int i = 0; i < node.getNumChildren(); i++) {
+            visit(node.getJmmChild(i), data);
         }
 
         return null;
@@ -23,6 +23,13 @@ public interface JmmNode {
      */
     String getKind();
 
+    /**
+     * @return the id of the kind of this node, as given by {@link NodeKinds}
+     */
+    default int getKindId() {
+        return NodeKinds.getId(getKind());
+    }
+
     /**
      * @return the names of the attributes supported by this Node kind
      */
@@ -44,6 +51,42 @@ public interface JmmNode {
      */
     String get(String attribute);
 
+    /**
+     * 
+     * @param attribute
+     * @return true if the node has a value for the given attribute
+     */
+    default boolean hasAttribute(String attribute) {
+        return getAttributes().contains(attribute);
+    }
+
+    /**
+     * 
+     * @return the value of the attribute 'line' as an int
+     */
+    default int getLine() {
+        return Integer.parseInt(get("line"));
+    }
+
+    /**
+     * 
+     * @return the value of the attribute 'column' as an int
+     */
+    default int getColumn() {
+        return Integer.parseInt(get("column"));
+    }
+
+    /**
+     * Sets the attributes 'line' and 'column'.
+     * 
+     * @param line
+     * @param column
+     */
+    default void putLineCol(int line, int column) {
+        put("line", Integer.toString(line));
+        put("column", Integer.toString(column));
+    }
+
     /**
      * 
      * @param attribute
@@ -82,9 +125,11 @@ public interface JmmNode {
 
     /**
      * 
-     * @return the children of the node or an empty list if there are no children. The returned list is a copy of the
-     *         underlying list, so changes to this list will not be reflected on the AST. To change the AST please use
-     *         the node methods
+     * @return the children of the node or an empty list if there are no children. The returned list cannot be
+     *         modified, and may be a view of the underlying list that reflects later changes to the AST. To change the
+     *         AST please use the node methods, and iterate over a copy of this list if the AST changes while
+     *         iterating. {@link #getNumChildren()} and {@link #getJmmChild(int)} iterate over the children without
+     *         allocating
      * 
      */
     List<JmmNode> getChildren();
@@ -152,7 +197,7 @@ public interface JmmNode {
      * @return
      */
     default JmmNode sanitize() {
-        return fromJson(this.toJson());
+        return JmmNodeImpl.copyOf(this);
     }
 
     static <T> List<JmmNode> convertChildren(T[] children) {
@@ -179,8 +224,8 @@ public interface JmmNode {
     default void toTree(StringBuilder tree, String prefix) {
         tree.append(prefix).append(toString()).append("\n");
 
-        for (var child : getChildren()) {
-            child.toTree(tree, prefix + "   ");
+        for (int i = 0; i < getNumChildren(); i++) {
+            getJmmChild(i).toTree(tree, prefix + "   ");
         }
     }
 
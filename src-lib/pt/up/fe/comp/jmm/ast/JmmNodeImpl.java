@@ -1,8 +1,10 @@
 package pt.up.fe.comp.jmm.ast;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 import com.google.gson.Gson;
@@ -11,12 +13,16 @@ import com.google.gson.GsonBuilder;
 public class JmmNodeImpl extends AJmmNode {
 
     protected String kind;
+    private final int kindId;
     protected List<JmmNode> children;
+    private final List<JmmNode> childrenView;
     private JmmNode parent;
 
     public JmmNodeImpl(String kind) {
-        this.kind = kind;
+        this.kindId = NodeKinds.getId(kind);
+        this.kind = NodeKinds.getKind(kindId);
         this.children = new ArrayList<>();
+        this.childrenView = Collections.unmodifiableList(this.children);
     }
 
     @Override
@@ -26,7 +32,12 @@ public class JmmNodeImpl extends AJmmNode {
 
     @Override
     public List<JmmNode> getChildren() {
-        return new ArrayList<>(this.children);
+        return this.childrenView;
+    }
+
+    @Override
+    public JmmNode getJmmChild(int index) {
+        return this.children.get(index);
     }
 
     @Override
@@ -35,8 +46,8 @@ public class JmmNodeImpl extends AJmmNode {
     }
 
     @Override
-    public Optional<String> getOptional(String attribute) {
-        return Optional.ofNullable(getAttributesMap().get(attribute));
+    public int getKindId() {
+        return this.kindId;
     }
 
     @Override
@@ -90,6 +101,54 @@ public class JmmNodeImpl extends AJmmNode {
         return gson.fromJson(source, JmmNodeImpl.class);
     }
 
+    /**
+     * Creates a deep copy of the given node and all its descendants as JmmNodeImpl instances, preserving kinds,
+     * attributes and the order of children. Gives the same tree as a round trip through JSON, without the
+     * serialization.
+     * 
+     * @param node
+     * @return
+     */
+    public static JmmNodeImpl copyOf(JmmNode node) {
+        JmmNodeImpl root = copyNode(node);
+
+        // Explicit stack, so that very deep trees do not overflow the call stack
+        Deque<JmmNode> originals = new ArrayDeque<>();
+        Deque<JmmNodeImpl> copies = new ArrayDeque<>();
+        originals.push(node);
+        copies.push(root);
+
+        while (!originals.isEmpty()) {
+            JmmNode original = originals.pop();
+            JmmNodeImpl copy = copies.pop();
+
+            for (JmmNode child : original.getChildren()) {
+                JmmNodeImpl childCopy = copyNode(child);
+                copy.add(childCopy);
+
+                originals.push(child);
+                copies.push(childCopy);
+            }
+        }
+
+        return root;
+    }
+
+    private static JmmNodeImpl copyNode(JmmNode node) {
+        JmmNodeImpl copy = new JmmNodeImpl(node.getKind());
+
+        if (node instanceof AJmmNode) {
+            copy.copyAttributes((AJmmNode) node);
+            return copy;
+        }
+
+        for (String attribute : node.getAttributes()) {
+            copy.put(attribute, node.get(attribute));
+        }
+
+        return copy;
+    }
+
     @Override
     public void setParent(JmmNode parent) {
         this.parent = parent;
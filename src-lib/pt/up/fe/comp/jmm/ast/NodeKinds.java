@@ -0,0 +1,55 @@
+package pt.up.fe.comp.jmm.ast;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns node kinds, assigning to each kind a small integer id that can be used to index arrays.
+ * 
+ * <p>
+ * Ids are assigned in the order kinds are first seen and never change while the program runs. The kind names
+ * returned by {@link #getKind(int)} are interned Strings, so comparing them with String literals is a reference
+ * comparison in the common case.
+ */
+public class NodeKinds {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final Object LOCK = new Object();
+
+    // Copied on write, so that lookups by id do not need to lock
+    private static volatile String[] kinds = new String[0];
+
+    private NodeKinds() {
+    }
+
+    /**
+     * 
+     * @param kind
+     * @return the id of the given kind, assigning a new one if the kind was not seen before
+     */
+    public static int getId(String kind) {
+        Integer id = IDS.get(kind);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (LOCK) {
+            return IDS.computeIfAbsent(kind, newKind -> {
+                String[] newKinds = Arrays.copyOf(kinds, kinds.length + 1);
+                newKinds[kinds.length] = newKind.intern();
+                kinds = newKinds;
+                return kinds.length - 1;
+            });
+        }
+    }
+
+    /**
+     * 
+     * @param id
+     * @return the kind with the given id
+     */
+    public static String getKind(int id) {
+        return kinds[id];
+    }
+}
@@ -30,13 +30,13 @@ public class PostorderJmmVisitor<D, R> extends AllNodesJmmVisitor<D, R> {
     public R visit(JmmNode jmmNode, D data) {
         SpecsCheck.checkNotNull(jmmNode, () -> "Node should not be null");
 
-        var visit = getVisit(jmmNode.getKind());
+        var visit = getVisit(jmmNode.getKindId());
 
         List<R> childrenResults = new ArrayList<>();
 
         // Postorder: 1st visit each children
-        for (var child : jmmNode.getChildren()) {
-            childrenResults.add(visit(child, data));
+        for (int i = 0; i < jmmNode.getNumChildren(); i++) {
+            childrenResults.add(visit(jmmNode.getJmmChild(i), data));
         }
 
         // Postorder: then, visit the node
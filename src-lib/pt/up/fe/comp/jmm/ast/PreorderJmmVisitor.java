@@ -30,15 +30,15 @@ public class PreorderJmmVisitor<D, R> extends AllNodesJmmVisitor<D, R> {
     public R visit(JmmNode jmmNode, D data) {
         SpecsCheck.checkNotNull(jmmNode, () -> "Node should not be null");
 
-        var visit = getVisit(jmmNode.getKind());
+        var visit = getVisit(jmmNode.getKindId());
 
         // Preorder: 1st visit the node
         var nodeResult = visit.apply(jmmNode, data);
 
         // Preorder: then, visit each children
         List<R> childrenResults = new ArrayList<>();
-        for (var child : jmmNode.getChildren()) {
-            childrenResults.add(visit(child, data));
+        for (int i = 0; i < jmmNode.getNumChildren(); i++) {
+            childrenResults.add(visit(jmmNode.getJmmChild(i), data));
         }
 
         var reduceFunction = getReduce();
@@ -2,9 +2,11 @@ package pt.up.fe.comp.jmm.jasmin;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -37,12 +39,14 @@ public class JasminResult implements ReportsProvider {
     private final String jasminCode;
     private final List<Report> reports;
     private final Map<String, String> config;
+    private byte[] classFile;
 
     public JasminResult(String className, String jasminCode, List<Report> reports, Map<String, String> config) {
         this.className = className;
         this.jasminCode = jasminCode;
         this.reports = reports;
         this.config = config;
+        this.classFile = null;
     }
 
     public JasminResult(String className, String jasminCode, List<Report> reports) {
@@ -62,6 +66,15 @@ public class JasminResult implements ReportsProvider {
         this(jasminCode, new HashMap<>());
     }
 
+    /**
+     * Result of a backend that writes the class file directly, without going through Jasmin code.
+     */
+    public static JasminResult fromClassFile(OllirResult ollirResult, byte[] classFile, List<Report> reports) {
+        var result = new JasminResult(ollirResult, null, reports);
+        result.classFile = classFile;
+        return result;
+    }
+
     public static JasminResult newError(String className, Report errorReport) {
         return new JasminResult(className, null, new ArrayList<>(Arrays.asList(errorReport)));
     }
@@ -91,9 +104,30 @@ public class JasminResult implements ReportsProvider {
      * @return a reference to the .class file
      */
     public File compile(File outputDir) {
-        File jasminFile = new File(SpecsIo.getTempFolder("jasmin"), getClassName() + ".j");
-        SpecsIo.write(jasminFile, getJasminCode());
-        return JasminUtils.assemble(jasminFile, outputDir);
+        if (classFile != null) {
+            File outputFile = new File(outputDir, getClassName() + ".class");
+            try {
+                Files.write(outputFile.toPath(), classFile);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write class file " + outputFile, e);
+            }
+            return outputFile;
+        }
+
+        return JasminUtils.assemble(getJasminCode(), getClassName() + ".j", outputDir);
+    }
+
+    /**
+     * Compiles the generated Jasmin code using the Jasmin tool, entirely in memory.
+     * 
+     * @return the contents of the class file
+     */
+    public byte[] compileToBytes() {
+        if (classFile != null) {
+            return classFile;
+        }
+
+        return JasminUtils.assemble(getJasminCode(), getClassName() + ".j");
     }
 
     /**
@@ -1,11 +1,13 @@
 package pt.up.fe.comp.jmm.jasmin;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 
 import jas.jasError;
 import jasmin.ClassFile;
@@ -25,8 +27,58 @@ public class JasminUtils {
                 InputStreamReader ir = new InputStreamReader(fs);
                 BufferedReader inp = new BufferedReader(ir);) {
 
+            return write(readJasmin(inp, inputFile.getName()), outputDir);
+        } catch (java.io.FileNotFoundException e) {
+            throw new RuntimeException("Class could not be created: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Exception while assembling Jasmin file", e);
+        }
+    }
+
+    /**
+     * Assembles Jasmin code that is already in memory, without going through a temporary .j file.
+     * 
+     * @param jasminCode
+     * @param sourceName
+     *            name used for the source file attribute and error messages (e.g. "Foo.j")
+     * @param outputDir
+     *            the folder where the class file will written
+     * @return a reference to the .class file
+     */
+    public static File assemble(String jasminCode, String sourceName, File outputDir) {
+        try (BufferedReader inp = new BufferedReader(new StringReader(jasminCode))) {
+            return write(readJasmin(inp, sourceName), outputDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Exception while assembling Jasmin code", e);
+        }
+    }
+
+    /**
+     * Assembles Jasmin code that is already in memory, without touching the disk.
+     * 
+     * @param jasminCode
+     * @param sourceName
+     *            name used for the source file attribute and error messages (e.g. "Foo.j")
+     * @return the contents of the class file
+     */
+    public static byte[] assemble(String jasminCode, String sourceName) {
+        try (BufferedReader inp = new BufferedReader(new StringReader(jasminCode))) {
+            ClassFile classFile = readJasmin(inp, sourceName);
+
+            ByteArrayOutputStream outp = new ByteArrayOutputStream();
+            classFile.write(outp);
+            return outp.toByteArray();
+        } catch (jasError e) {
+            throw new RuntimeException("JAS Error: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Exception while assembling Jasmin code", e);
+        }
+    }
+
+    private static ClassFile readJasmin(BufferedReader inp, String sourceName) {
+        try {
             ClassFile classFile = new ClassFile();
-            classFile.readJasmin(inp, inputFile.getName(), true);
+            classFile.readJasmin(inp, sourceName, true);
 
             // if we got some errors, don't output a file - just return.
             if (classFile.errorCount() > 0) {
@@ -35,12 +87,23 @@ public class JasminUtils {
 
             }
 
+            return classFile;
+        } catch (jasError e) {
+            throw new RuntimeException("JAS Error: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Exception while assembling Jasmin file", e);
+        }
+    }
+
+    private static File write(ClassFile classFile, File outputDir) {
+        try {
             String class_path[] = (splitClassField(
                     classFile.getClassName()));
             String class_name = class_path[1];
 
             // determine where to place this class file
-            // String dest_dir = dest_path;
             if (class_path[0] != null) {
                 String class_dir = convertChars(
                         class_path[0], "./",
@@ -48,10 +111,6 @@ public class JasminUtils {
                 outputDir = new File(outputDir, class_dir);
 
             }
-            // iocause = class_name + ".class: file can't be created";
-            // if (dest_dir == null) {
-            // out_file = new File(class_name + ".class");
-            // } else {
             File out_file = new File(outputDir, class_name + ".class");
 
             // check that dest_dir exists
@@ -77,7 +136,6 @@ public class JasminUtils {
         } catch (Exception e) {
             throw new RuntimeException("Exception while assembling Jasmin file", e);
         }
-
     }
 
     //
@@ -3,6 +3,7 @@ package pt.up.fe.comp.jmm.ollir;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.specs.comp.ollir.ClassUnit;
 
@@ -17,7 +18,8 @@ import pt.up.fe.specs.util.SpecsCollections;
  */
 public class OllirResult implements ReportsProvider {
 
-    private final String ollirCode;
+    private String ollirCode;
+    private Supplier<String> ollirCodeSupplier;
     private final ClassUnit ollirClass;
     private final SymbolTable symbolTable;
     private final List<Report> reports;
@@ -53,7 +55,28 @@ public class OllirResult implements ReportsProvider {
                 SpecsCollections.concat(semanticsResult.getReports(), reports), semanticsResult.getConfig());
     }
 
-    public String getOllirCode() {
+    /**
+     * Creates a new instance from the analysis stage results and an OLLIR class that was built directly, without
+     * parsing OLLIR code. The OLLIR code is only generated, once, when it is first requested.
+     * 
+     * @param semanticsResult
+     * @param ollirClass
+     * @param ollirCodeSupplier
+     * @param reports
+     */
+    public OllirResult(JmmSemanticsResult semanticsResult, ClassUnit ollirClass, Supplier<String> ollirCodeSupplier,
+            List<Report> reports) {
+        this(null, ollirClass, semanticsResult.getSymbolTable(),
+                SpecsCollections.concat(semanticsResult.getReports(), reports), semanticsResult.getConfig());
+        this.ollirCodeSupplier = ollirCodeSupplier;
+    }
+
+    public synchronized String getOllirCode() {
+        if (ollirCode == null && ollirCodeSupplier != null) {
+            ollirCode = ollirCodeSupplier.get();
+            ollirCodeSupplier = null;
+        }
+
         return ollirCode;
     }
 
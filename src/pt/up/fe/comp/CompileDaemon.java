@@ -0,0 +1,118 @@
+package pt.up.fe.comp;
+
+import pt.up.fe.specs.util.SpecsLogs;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-running compile server, so that repeated compilations reuse an already loaded and warmed up JVM.
+ *
+ * <p>
+ * Listens on the loopback interface only. Each connection carries a single request line of tab-separated fields:
+ * <ul>
+ * <li>{@code compile <working dir> <arg>...} compiles the given files or directories with the given options, like
+ * {@link Launcher}, writing the outputs to the working directory;</li>
+ * <li>{@code stop} shuts the daemon down.</li>
+ * </ul>
+ * The response is the output of the compilation, terminated by a line {@code EXIT <status>}.
+ *
+ * <p>
+ * Clients are not authenticated, so any local user can have the daemon compile and write files anywhere its own user
+ * can write.
+ */
+public class CompileDaemon {
+    public static final int DEFAULT_PORT = 7878;
+
+    private final int port;
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+
+    private volatile boolean running;
+
+    public CompileDaemon(int port) {
+        this.port = port;
+    }
+
+    public void run() {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            running = true;
+            SpecsLogs.info("Compile daemon listening on " + server.getLocalSocketAddress());
+
+            while (running) {
+                Socket client = server.accept();
+                clients.submit(() -> handle(client, server));
+            }
+        } catch (IOException e) {
+            if (running) {
+                throw new RuntimeException("Compile daemon stopped unexpectedly", e);
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private void handle(Socket client, ServerSocket server) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(client.getOutputStream(), true, StandardCharsets.UTF_8)) {
+
+            String request = in.readLine();
+            if (request == null) return;
+
+            String[] fields = request.split("\t");
+            switch (fields[0]) {
+                case "compile":
+                    out.println("EXIT " + compile(fields, out));
+                    break;
+                case "stop":
+                    running = false;
+                    out.println("EXIT 0");
+                    server.close();
+                    break;
+                default:
+                    out.println("Unknown request '" + fields[0] + "'");
+                    out.println("EXIT 2");
+            }
+        } catch (IOException e) {
+            SpecsLogs.warn("Error while handling compile request", e);
+        }
+    }
+
+    private int compile(String[] fields, PrintStream out) {
+        if (fields.length < 3) {
+            out.println("Expected a working directory and at least one path to compile.");
+            return 2;
+        }
+
+        File workingDir = new File(fields[1]);
+        String[] args = Arrays.copyOfRange(fields, 2, fields.length);
+
+        try {
+            Map<String, String> options = new HashMap<>();
+            String[] paths = Launcher.parseOptions(args, options);
+            if (paths.length == 0) {
+                out.println("Expected at least one path to compile.");
+                return 2;
+            }
+
+            List<File> inputFiles = Launcher.getInputFiles(paths, workingDir);
+            return Launcher.compileBatch(inputFiles, workingDir, options, out) == 0 ? 0 : 1;
+        } catch (RuntimeException e) {
+            out.println(e.getMessage());
+            return 1;
+        }
+    }
+}
@@ -6,6 +6,9 @@ import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp.optimization.JmmOptimizer;
 import pt.up.fe.specs.util.SpecsIo;
 import pt.up.fe.specs.util.SpecsLogs;
@@ -14,9 +17,18 @@ import pt.up.fe.specs.util.SpecsSystem;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Launcher {
 
@@ -26,28 +38,249 @@ public class Launcher {
         SpecsLogs.info("Executing with args: " + Arrays.toString(args));
 
         // read the input code
-        if (args.length != 1) {
-            throw new RuntimeException("Expected a single argument, a path to an existing input file.");
+        if (args.length == 0) {
+            throw new RuntimeException("Expected at least one argument, a path to an existing input file or directory.");
         }
-        File inputFile = new File(args[0]);
-        if (!inputFile.isFile()) {
-            throw new RuntimeException("Expected a path to an existing input file, got '" + args[0] + "'.");
+
+        if (args[0].equals("--daemon")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : CompileDaemon.DEFAULT_PORT;
+            new CompileDaemon(port).run();
+            return;
         }
-        String input = SpecsIo.read(inputFile);
 
-        // Create config
+        File outputDir = new File(System.getProperty("user.dir"));
+
+        Map<String, String> options = new HashMap<>();
+        String[] paths = parseOptions(args, options);
+        if (paths.length == 0) {
+            throw new RuntimeException("Expected at least one path to an existing input file or directory.");
+        }
+
+        // Single file: fail on the first error, as before
+        if (paths.length == 1 && !new File(paths[0]).isDirectory()) {
+            File inputFile = new File(paths[0]);
+            if (!inputFile.isFile()) {
+                throw new RuntimeException("Expected a path to an existing input file, got '" + paths[0] + "'.");
+            }
+
+            TestUtils.noErrors(compile(inputFile, outputDir, options));
+            return;
+        }
+
+        List<File> inputFiles = getInputFiles(paths, outputDir);
+        if (inputFiles.isEmpty()) {
+            throw new RuntimeException("No .jmm files found in the given paths.");
+        }
+
+        int failed = compileBatch(inputFiles, outputDir, options, System.out);
+
+        if (failed > 0) {
+            throw new RuntimeException(failed + " of " + inputFiles.size() + " files failed to compile.");
+        }
+    }
+
+    /**
+     * Moves the compiler options in the arguments to the given map, as config entries: -o enables the optimizations
+     * and -r=&lt;n&gt; allocates at most n registers per method, or as few as possible if n is 0.
+     *
+     * @return the remaining arguments, which are the paths to compile
+     */
+    static String[] parseOptions(String[] args, Map<String, String> options) {
+        List<String> paths = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.equals("-o")) {
+                options.put("optimize", "true");
+            } else if (arg.startsWith("-r=")) {
+                String numRegisters = arg.substring("-r=".length());
+                if (!numRegisters.matches("\\d+")) {
+                    throw new RuntimeException("Expected a non-negative number of registers, got '" + arg + "'.");
+                }
+                options.put("registerAllocation", numRegisters);
+            } else {
+                paths.add(arg);
+            }
+        }
+
+        return paths.toArray(new String[0]);
+    }
+
+    /**
+     * Expands the given paths into the list of .jmm files to compile. Directories are searched recursively and
+     * relative paths are resolved against the given working directory.
+     */
+    static List<File> getInputFiles(String[] args, File workingDir) {
+        List<File> inputFiles = new ArrayList<>();
+
+        for (String arg : args) {
+            File path = new File(arg);
+            if (!path.isAbsolute()) {
+                path = new File(workingDir, arg);
+            }
+
+            if (path.isDirectory()) {
+                List<File> dirFiles = SpecsIo.getFilesRecursive(path, "jmm");
+                dirFiles.sort(Comparator.comparing(File::getPath));
+                inputFiles.addAll(dirFiles);
+            } else if (path.isFile()) {
+                inputFiles.add(path);
+            } else {
+                throw new RuntimeException("Expected a path to an existing input file or directory, got '" + arg + "'.");
+            }
+        }
+
+        return inputFiles;
+    }
+
+    private static Map<String, String> getConfig(File inputFile, Map<String, String> options) {
         Map<String, String> config = new HashMap<>();
-        config.put("inputFile", args[0]);
+        config.put("inputFile", inputFile.getPath());
         config.put("optimize", "false");
         config.put("registerAllocation", "-1");
         config.put("debug", "false");
+        // "jasmin" (default) or "classfile", to write the class file directly without going through Jasmin
+        config.put("backend", System.getProperty("backend", "jasmin"));
+        config.putAll(options);
+
+        return config;
+    }
+
+    /**
+     * Compiles every input file on a pool bounded by the number of available cores. Reports are printed in input
+     * order once all units finish. A unit that declares the same class as an earlier input fails without writing its
+     * output files.
+     *
+     * @return the number of files that failed to compile
+     */
+    static int compileBatch(List<File> inputFiles, File outputDir, Map<String, String> options, PrintStream out) {
+        if (inputFiles.isEmpty()) {
+            out.println("No .jmm files found in the given paths.");
+            return 0;
+        }
+
+        int numThreads = Math.min(inputFiles.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+        long start = System.nanoTime();
+
+        List<Future<CompiledUnit>> units = new ArrayList<>();
+        for (File inputFile : inputFiles) {
+            units.add(executor.submit(() -> translateUnit(inputFile, options)));
+        }
+
+        // Outputs are named after the class, so a unit that declares the class of an earlier input is rejected
+        // instead of racing it to write the same files
+        Map<String, File> classes = new HashMap<>();
+        List<Future<List<Report>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < inputFiles.size(); i++) {
+                CompiledUnit unit = getResult(units.get(i), inputFiles.get(i));
+
+                String className = unit.getClassName();
+                if (className == null) {
+                    results.add(CompletableFuture.completedFuture(unit.reports));
+                    continue;
+                }
+
+                File previous = classes.putIfAbsent(className, inputFiles.get(i));
+                if (previous != null) {
+                    results.add(CompletableFuture.completedFuture(List.of(Report.newError(Stage.GENERATION, -1, -1,
+                            "Class " + className + " is also declared in " + previous.getPath()
+                                    + ", whose output files it would overwrite", null))));
+                    continue;
+                }
+
+                results.add(executor.submit(() -> writeUnit(unit, outputDir)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        int failed = 0;
+        for (int i = 0; i < inputFiles.size(); i++) {
+            List<Report> reports = getResult(results.get(i), inputFiles.get(i));
+
+            boolean hasErrors = TestUtils.getNumErrors(reports) > 0;
+            if (hasErrors) failed++;
+
+            out.println((hasErrors ? "[FAILED] " : "[OK] ") + inputFiles.get(i).getPath());
+            for (Report report : reports) {
+                if (report.getType() == ReportType.ERROR || report.getType() == ReportType.WARNING) {
+                    out.println("\t" + report);
+                }
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        out.println("Compiled " + (inputFiles.size() - failed) + " of " + inputFiles.size()
+                + " files in " + elapsedMs + "ms using " + numThreads + " threads");
+
+        return failed;
+    }
+
+    private static <T> T getResult(Future<T> result, File inputFile) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch compilation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Exception while compiling " + inputFile.getPath(), e);
+        }
+    }
+
+    /**
+     * Batch wrappers around {@link #translate(File, Map)} and {@link CompiledUnit#write(File)} that turn crashes of a
+     * stage into an error report, so one bad unit does not abort the others. Errors are caught too, as deeply nested
+     * input overflows the stack of the recursive stages.
+     */
+    private static CompiledUnit translateUnit(File inputFile, Map<String, String> options) {
+        try {
+            return translate(inputFile, options);
+        } catch (Throwable e) {
+            return new CompiledUnit(crashReport(e), null, null);
+        }
+    }
+
+    private static List<Report> writeUnit(CompiledUnit unit, File outputDir) {
+        try {
+            return unit.write(outputDir);
+        } catch (Throwable e) {
+            return crashReport(e);
+        }
+    }
+
+    private static List<Report> crashReport(Throwable e) {
+        Exception exception = e instanceof Exception ? (Exception) e : new RuntimeException(e);
+        return List.of(Report.newError(Stage.GENERATION, -1, -1, "Exception during compilation: " + e, exception));
+    }
+
+    /**
+     * Runs all the stages for a single unit, writing the .ollir, .j and .class files to the output directory.
+     *
+     * @return the reports of the last stage that ran; compilation stops at the first stage with errors
+     */
+    public static List<Report> compile(File inputFile, File outputDir, Map<String, String> options) {
+        return translate(inputFile, options).write(outputDir);
+    }
+
+    /**
+     * Runs all the stages for a single unit without writing anything, stopping at the first stage with errors.
+     */
+    private static CompiledUnit translate(File inputFile, Map<String, String> options) {
+        String input = SpecsIo.read(inputFile);
+
+        // Create config
+        Map<String, String> config = getConfig(inputFile, options);
 
         // Instantiate JmmParser
         SimpleParser parser = new SimpleParser();
         // Parse stage
         JmmParserResult parserResult = parser.parse(input, config);
         // Check if there are parsing errors
-        TestUtils.noErrors(parserResult.getReports());
+        if (TestUtils.getNumErrors(parserResult.getReports()) > 0) {
+            return new CompiledUnit(parserResult.getReports(), null, null);
+        }
 
 
         // Instantiate JmmAnalysis
@@ -55,66 +288,82 @@ public class Launcher {
         // Analysis stage
         JmmSemanticsResult analysisResult = analyser.semanticAnalysis(parserResult);
         // Check if there are analysis errors
-        TestUtils.noErrors(analysisResult.getReports());
+        if (TestUtils.getNumErrors(analysisResult.getReports()) > 0) {
+            return new CompiledUnit(analysisResult.getReports(), null, null);
+        }
 
 
         // Instantiate JmmOptimizer
         JmmOptimizer optimizer = new JmmOptimizer();
         // Optimization stage
-        OllirResult optimizerResult = optimizer.toOllir(analysisResult);
+        analysisResult = optimizer.optimize(analysisResult);
+        OllirResult optimizerResult = optimizer.optimize(optimizer.toOllir(analysisResult));
         // Check if there are optimization errors
-        TestUtils.noErrors(optimizerResult.getReports());
-
-        try {
-            File ollirFile = new File(System.getProperty("user.dir") + "/" + optimizerResult.getOllirClass().getClassName() + ".ollir");
-            if (!ollirFile.createNewFile()) {
-                ollirFile.delete();
-
-                if(!ollirFile.createNewFile()){
-                    System.out.println("Error writing OLLIR file");
-                }
-            }
-
-            try(FileWriter fileWriter = new FileWriter(ollirFile.getAbsolutePath())){
-                fileWriter.write(optimizerResult.getOllirCode());
-            }
-        } catch (IOException e) {
-            System.out.println("An error occurred.");
-            e.printStackTrace();
+        if (TestUtils.getNumErrors(optimizerResult.getReports()) > 0) {
+            return new CompiledUnit(optimizerResult.getReports(), null, null);
         }
 
 
         JmmBackend backend = new JmmBackend();
         JasminResult backendResult = backend.toJasmin(optimizerResult);
-        TestUtils.noErrors(backendResult.getReports());
 
-        try {
-            File jasminFile = new File(System.getProperty("user.dir")+ "/" + backendResult.getClassName() + ".j");
-            if (!jasminFile.createNewFile()) {
-                jasminFile.delete();
+        return new CompiledUnit(backendResult.getReports(), optimizerResult, backendResult);
+    }
 
-                if(!jasminFile.createNewFile()){
-                    System.out.println("Error writing Jasmin file");
-                }
+    /**
+     * The results of the stages of a unit, kept until its output files are written. The OLLIR result is null if an
+     * earlier stage failed.
+     */
+    private static class CompiledUnit {
+        private final List<Report> reports;
+        private final OllirResult ollirResult;
+        private final JasminResult backendResult;
 
-            }
+        private CompiledUnit(List<Report> reports, OllirResult ollirResult, JasminResult backendResult) {
+            this.reports = reports;
+            this.ollirResult = ollirResult;
+            this.backendResult = backendResult;
+        }
 
-            try(FileWriter fileWriter = new FileWriter(jasminFile.getAbsolutePath())){
-                fileWriter.write(backendResult.getJasminCode());
-            }
+        private String getClassName() {
+            return ollirResult != null ? ollirResult.getOllirClass().getClassName() : null;
+        }
+
+        /**
+         * Writes the .ollir file, and the .j and .class files if the backend had no errors.
+         *
+         * @return the reports of the last stage that ran
+         */
+        private List<Report> write(File outputDir) {
+            if (ollirResult == null) return reports;
+
+            writeOutput(new File(outputDir, getClassName() + ".ollir"), ollirResult.getOllirCode());
 
-            File classDir = new File(System.getProperty("user.dir")+ "/.");
-            File classFile = new File(System.getProperty("user.dir")+ "/" + backendResult.getClassName() + ".class");
+            if (TestUtils.getNumErrors(backendResult.getReports()) > 0) return backendResult.getReports();
 
+            // The class file backend does not produce Jasmin code
+            if (backendResult.getJasminCode() != null) {
+                writeOutput(new File(outputDir, backendResult.getClassName() + ".j"), backendResult.getJasminCode());
+            }
+
+            File classFile = new File(outputDir, backendResult.getClassName() + ".class");
             if (classFile.exists()) {
                 if(!classFile.delete()){
                     System.out.println("Error writing class file");
                 }
             }
 
-            backendResult.compile(classDir);
+            backendResult.compile(outputDir);
+
+            return backendResult.getReports();
+        }
+    }
+
+    private static void writeOutput(File file, String contents) {
+        try (FileWriter fileWriter = new FileWriter(file, false)) {
+            fileWriter.write(contents);
         } catch (IOException e) {
-            System.out.println("An error occurred.");
+            System.out.println("Error writing file " + file.getName());
             e.printStackTrace();
         }
     }
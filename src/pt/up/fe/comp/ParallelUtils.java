@@ -0,0 +1,61 @@
+package pt.up.fe.comp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+public class ParallelUtils {
+
+    /**
+     * Applies the function to every input concurrently, on the common fork/join pool, and returns the results in the
+     * order of the inputs. If some applications throw, the exception of the first one in input order is rethrown
+     * unchanged once all of them finish, so neither results nor failures depend on scheduling.
+     */
+    public static <T, R> List<R> mapInOrder(List<T> inputs, Function<T, R> function) {
+        List<ForkJoinTask<Outcome<R>>> tasks = new ArrayList<>(inputs.size());
+        for (T input : inputs) {
+            tasks.add(ForkJoinTask.adapt(() -> Outcome.of(function, input)).fork());
+        }
+
+        List<Outcome<R>> outcomes = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<Outcome<R>> task : tasks) {
+            outcomes.add(task.join());
+        }
+
+        List<R> results = new ArrayList<>(outcomes.size());
+        for (Outcome<R> outcome : outcomes) {
+            results.add(outcome.get());
+        }
+
+        return results;
+    }
+
+    /**
+     * The result of applying a function, or what it threw. Exceptions are kept instead of being propagated by the
+     * fork/join framework, which may replace them with copies when they cross threads.
+     */
+    private static class Outcome<R> {
+        private final R value;
+        private final Throwable exception;
+
+        private Outcome(R value, Throwable exception) {
+            this.value = value;
+            this.exception = exception;
+        }
+
+        private static <T, R> Outcome<R> of(Function<T, R> function, T input) {
+            try {
+                return new Outcome<>(function.apply(input), null);
+            } catch (RuntimeException | Error e) {
+                return new Outcome<>(null, e);
+            }
+        }
+
+        private R get() {
+            if (exception instanceof RuntimeException) throw (RuntimeException) exception;
+            if (exception instanceof Error) throw (Error) exception;
+            return value;
+        }
+    }
+}
@@ -2,9 +2,12 @@ package pt.up.fe.comp.analysis;
 
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
+import pt.up.fe.comp.ParallelUtils;
 import pt.up.fe.comp.analysis.visitors.SemanticVisitor;
+import pt.up.fe.comp.ast.AstUtils;
 import pt.up.fe.comp.jmm.analysis.JmmAnalysis;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.ast.JmmNode;
@@ -23,12 +26,57 @@ public class JmmAnalyser implements JmmAnalysis {
         var tableBuilder = new JmmSymbolTableBuilder();
         tableBuilder.visit(parserResult.getRootNode(), symbolTable);
 
-        SemanticVisitor semanticVisitor = new SemanticVisitor(symbolTable);
-        semanticVisitor.visit(node, reports);
+        reports.addAll(checkSemantics(node, symbolTable));
 
 
         reports.addAll(tableBuilder.getReports());
 
         return new JmmSemanticsResult(parserResult, symbolTable, reports);
     }
+
+    /**
+     * Checks the program once the symbol table is complete. Methods only read the symbol table, so each one is checked
+     * by its own visitor on the common fork/join pool, while the rest of the program is checked on this thread.
+     *
+     * @return the reports of all checks, sorted by line and column
+     */
+    private static List<Report> checkSemantics(JmmNode programNode, JmmSymbolTable symbolTable) {
+        List<Report> reports = new ArrayList<>();
+        List<JmmNode> methodNodes = new ArrayList<>();
+
+        SemanticVisitor semanticVisitor = new SemanticVisitor(symbolTable);
+        for (int i = 0; i < programNode.getNumChildren(); i++) {
+            JmmNode child = programNode.getJmmChild(i);
+
+            if (!child.getKind().equals("ClassDeclaration")) {
+                semanticVisitor.visit(child, reports);
+                continue;
+            }
+
+            for (int j = 0; j < child.getNumChildren(); j++) {
+                JmmNode member = child.getJmmChild(j);
+
+                if (AstUtils.isMethod(member)) {
+                    methodNodes.add(member);
+                } else {
+                    semanticVisitor.visit(member, reports);
+                }
+            }
+        }
+
+        List<List<Report>> methodReports = ParallelUtils.mapInOrder(methodNodes, methodNode -> {
+            List<Report> localReports = new ArrayList<>();
+            new SemanticVisitor(symbolTable).visit(methodNode, localReports);
+            return localReports;
+        });
+
+        for (List<Report> localReports : methodReports) {
+            reports.addAll(localReports);
+        }
+
+        // The sort is stable, so reports on the same position keep the order in which they were found
+        reports.sort(Comparator.comparingInt(Report::getLine).thenComparingInt(Report::getColumn));
+
+        return reports;
+    }
 }
@@ -4,7 +4,9 @@ import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public class JmmMethod {
@@ -14,10 +16,22 @@ public class JmmMethod {
 
     private List<Symbol> vars = new ArrayList<>();
 
+    // Indices for lookups by name; the first symbol with a given name wins, as in a linear search
+    private final Map<String, Integer> parameterIndices = new HashMap<>();
+    private final Map<String, Integer> varIndices = new HashMap<>();
+
+    private final MethodSignature signature;
+
     public JmmMethod(String name, Type returnType, List<Symbol> parameters) {
         this.name = name;
         this.returnType = returnType;
         this.parameters = parameters;
+
+        for (int i = 0; i < parameters.size(); i++) {
+            parameterIndices.putIfAbsent(parameters.get(i).getName(), i);
+        }
+
+        this.signature = MethodSignature.of(name, returnType, parameters);
     }
 
     public String getName() {
@@ -32,17 +46,54 @@ public class JmmMethod {
         return parameters;
     }
 
+    public MethodSignature getSignature() {
+        return signature;
+    }
+
+    public boolean isMain() {
+        return signature.equals(MethodSignature.MAIN);
+    }
+
+    /**
+     * @return the parameter with the given name, or null if there is none
+     */
+    public Symbol getParameter(String parameterName) {
+        Integer index = parameterIndices.get(parameterName);
+        return index != null ? parameters.get(index) : null;
+    }
+
+    /**
+     * @return the position of the parameter with the given name, or -1 if there is none
+     */
+    public int getParameterIndex(String parameterName) {
+        return parameterIndices.getOrDefault(parameterName, -1);
+    }
+
     public Symbol addVar(Symbol symbol) {
-        for (Symbol s : vars) {
-            if (Objects.equals(s.getName(), symbol.getName())) {
-                return s;
-            }
+        Integer index = varIndices.putIfAbsent(symbol.getName(), vars.size());
+        if (index != null) {
+            return vars.get(index);
         }
 
         vars.add(symbol);
         return null;
     }
 
+    /**
+     * @return the local variable with the given name, or null if there is none
+     */
+    public Symbol getVar(String varName) {
+        Integer index = varIndices.get(varName);
+        return index != null ? vars.get(index) : null;
+    }
+
+    /**
+     * @return the position of the local variable with the given name in {@link #getVars()}, or -1 if there is none
+     */
+    public int getVarIndex(String varName) {
+        return varIndices.getOrDefault(varName, -1);
+    }
+
     public List<Symbol> getVars() {
         return vars;
     }
@@ -73,16 +124,6 @@ public class JmmMethod {
 
     @Override
     public String toString() {
-        StringBuilder parameters = new StringBuilder();
-
-        for (Symbol s : this.parameters) {
-            parameters.append(s.getType().toString()).append(" ");
-        }
-
-        return "JmmMethod{" +
-                "name='" + name + '\'' +
-                ", returnType=" + returnType +
-                ", parameters=" + parameters +
-                '}';
+        return signature.toString();
     }
 }
@@ -9,6 +9,10 @@ import java.util.*;
 
 public class JmmSymbolTable implements SymbolTable {
     List<String> imports = new ArrayList<>();
+    // Full and simple names of the imports, and the types a variable can be declared with
+    Set<String> importSet = new HashSet<>();
+    Set<String> importedNames = new HashSet<>();
+    Set<String> knownTypes = new HashSet<>(List.of("int", "intArray", "boolean"));
 
     String className = null;
     String superName = null;
@@ -16,11 +20,15 @@ public class JmmSymbolTable implements SymbolTable {
 
 
     Map<String, JmmMethod> methods = new HashMap<>();
+    Map<MethodSignature, JmmMethod> methodsBySignature = new HashMap<>();
     List<JmmMethod> methodsName = new ArrayList<>();
+    // First method declared with each name
+    Map<String, JmmMethod> methodsByName = new HashMap<>();
 
 
     public void setClassName(String className) {
         this.className = className;
+        this.knownTypes.add(className);
     }
 
     public void setSuperName(String superName) {
@@ -29,6 +37,11 @@ public class JmmSymbolTable implements SymbolTable {
 
     public void addImport(String pkg) {
         this.imports.add(pkg);
+        this.importSet.add(pkg);
+
+        String importedName = pkg.substring(pkg.lastIndexOf('.') + 1);
+        this.importedNames.add(importedName);
+        this.knownTypes.add(importedName);
     }
 
     public void addField(Symbol field) {
@@ -37,6 +50,8 @@ public class JmmSymbolTable implements SymbolTable {
 
     public JmmMethod addMethod(JmmMethod method) {
         this.methodsName.add(method);
+        this.methodsByName.putIfAbsent(method.getName(), method);
+        this.methodsBySignature.putIfAbsent(method.getSignature(), method);
         return this.methods.putIfAbsent(method.toString(), method);
     }
 
@@ -45,7 +60,11 @@ public class JmmSymbolTable implements SymbolTable {
     }
 
     public static boolean isMain(String methodSignature) {
-        return methodSignature.equals(new JmmMethod("main", new Type("void", false), List.of(new Symbol(new Type("String", true), "any"))).toString());
+        return MethodSignature.MAIN.toString().equals(methodSignature);
+    }
+
+    public static boolean isMain(MethodSignature methodSignature) {
+        return MethodSignature.MAIN.equals(methodSignature);
     }
 
     @Override
@@ -53,6 +72,24 @@ public class JmmSymbolTable implements SymbolTable {
         return imports;
     }
 
+    public boolean hasImport(String pkg) {
+        return importSet.contains(pkg);
+    }
+
+    /**
+     * @return whether the name is the last part of an import, i.e., the name an imported class is used by
+     */
+    public boolean isImportedName(String name) {
+        return importedNames.contains(name);
+    }
+
+    /**
+     * @return whether the type is a primitive, the class itself or an imported class
+     */
+    public boolean isKnownType(String typeName) {
+        return knownTypes.contains(typeName);
+    }
+
     @Override
     public String getClassName() {
         return className;
@@ -74,25 +111,28 @@ public class JmmSymbolTable implements SymbolTable {
     }
 
     public JmmMethod getMethodByName(String methodName) {
-        for (JmmMethod method : methodsName) {
-            if (method.getName().equals(methodName))
-                return method;
-        }
-        return null;
+        return methodsByName.get(methodName);
     }
 
     public Symbol getFieldByName(String fieldName) {
-        for (Symbol field : fields.values()) {
-            if (field.getName().equals(fieldName))
-                return field;
-        }
-        return null;
+        return fields.get(fieldName);
     }
 
     public JmmMethod getMethodObject(String methodSignature) {
         return methods.get(methodSignature);
     }
 
+    public JmmMethod getMethodObject(MethodSignature methodSignature) {
+        return methodsBySignature.get(methodSignature);
+    }
+
+    /**
+     * @return the declared methods, in the same order as {@link #getMethods()}
+     */
+    public Collection<JmmMethod> getMethodObjects() {
+        return Collections.unmodifiableCollection(methods.values());
+    }
+
     public void printLocalVars() {
         for (JmmMethod method : methods.values()) {
             System.out.println(method.getName());
@@ -113,13 +153,15 @@ public class JmmSymbolTable implements SymbolTable {
     }
 
     public Symbol getParameter(String methodSignature, String parameterName) {
-        for (Symbol s : methods.get(methodSignature).getParameters()) {
-            if (parameterName.equals(s.getName())) {
-                return s;
-            }
-        }
+        return methods.get(methodSignature).getParameter(parameterName);
+    }
+
+    public Symbol getParameter(MethodSignature methodSignature, String parameterName) {
+        return methodsBySignature.get(methodSignature).getParameter(parameterName);
+    }
 
-        return null;
+    public int getParameterIndex(MethodSignature methodSignature, String parameterName) {
+        return methodsBySignature.get(methodSignature).getParameterIndex(parameterName);
     }
 
 
@@ -130,35 +172,26 @@ public class JmmSymbolTable implements SymbolTable {
     }
 
     public Symbol getLocalVar(String methodSignature, String varName) {
-        if(methods.get(methodSignature) == null) return null;
-        for (Symbol s : methods.get(methodSignature).getVars()) {
-            if (varName.equals(s.getName())) {
-                return s;
-
-            }
-        }
-
-        return null;
+        JmmMethod method = methods.get(methodSignature);
+        if(method == null) return null;
+        return method.getVar(varName);
     }
 
-    public JmmMethod getParentMethodName(JmmNode jmmNode) {
-        Optional<JmmNode> methodBody = jmmNode.getAncestor("MethodBody");
-
-        Optional<JmmNode> retExpression = jmmNode.getAncestor("ReturnExpression");
-
-        if (methodBody.isPresent()) {
-            if (methodBody.get().getJmmParent().getKind().equals("MainMethod")) {
-                return getMethodByName("main");
-            }
+    public Symbol getLocalVar(MethodSignature methodSignature, String varName) {
+        JmmMethod method = methodsBySignature.get(methodSignature);
+        if(method == null) return null;
+        return method.getVar(varName);
+    }
 
-            return getMethodByName(methodBody.get().getJmmParent().getJmmChild(0).getJmmChild(1).get("name"));
-        }
-        else if(retExpression.isPresent()){
-            if (retExpression.get().getJmmParent().getKind().equals("MainMethod")) {
-                return getMethodByName("main");
-            }
-            return getMethodByName(retExpression.get().getJmmParent().getJmmChild(0).getJmmChild(1).get("name"));
+    /**
+     * @param methodNode a MainMethod or InstanceMethod node
+     * @return the method declared by the node
+     */
+    public JmmMethod getMethodOf(JmmNode methodNode) {
+        if (methodNode.getKind().equals("MainMethod")) {
+            return getMethodByName("main");
         }
-        return null;
+
+        return getMethodByName(methodNode.getJmmChild(0).getJmmChild(1).get("name"));
     }
 }
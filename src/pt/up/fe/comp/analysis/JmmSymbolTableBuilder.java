@@ -39,8 +39,8 @@ public class JmmSymbolTableBuilder extends PreorderJmmVisitor<JmmSymbolTable, Bo
             reports.add(new Report(
                     ReportType.WARNING,
                     Stage.SEMANTIC,
-                    Integer.parseInt(importNode.get("line")),
-                    Integer.parseInt(importNode.get("column")),
+                    importNode.getLine(),
+                    importNode.getColumn(),
                     "Repeated import statement: " + importName));
             return false;
         }
@@ -58,8 +58,8 @@ public class JmmSymbolTableBuilder extends PreorderJmmVisitor<JmmSymbolTable, Bo
                 reports.add(new Report(
                         ReportType.ERROR,
                         Stage.SEMANTIC,
-                        Integer.parseInt(node.get("line")),
-                        Integer.parseInt(node.get("column")),
+                        node.getLine(),
+                        node.getColumn(),
                         "Variable already defined in this scope. Last definition: " + symbolTable.getFieldsMap().get(varName)));
             } else {
                 Type type = AstUtils.getNodeType(node.getJmmChild(0));
@@ -96,8 +96,8 @@ public class JmmSymbolTableBuilder extends PreorderJmmVisitor<JmmSymbolTable, Bo
                     reports.add(new Report(
                             ReportType.ERROR,
                             Stage.SEMANTIC,
-                            Integer.parseInt(child.get("line")),
-                            Integer.parseInt(child.get("column")),
+                            child.getLine(),
+                            child.getColumn(),
                             "Variable already defined in this scope. Last definition: " + se));
                 }
             }
@@ -113,8 +113,8 @@ public class JmmSymbolTableBuilder extends PreorderJmmVisitor<JmmSymbolTable, Bo
         if (e != null) {
             reports.add(new Report(ReportType.ERROR,
                     Stage.SEMANTIC,
-                    Integer.parseInt(methodNode.get("line")),
-                    Integer.parseInt(methodNode.get("column")),
+                    methodNode.getLine(),
+                    methodNode.getColumn(),
                     "Main method already defined. Last definition: " + e));
             return false;
         }
@@ -133,8 +133,8 @@ public class JmmSymbolTableBuilder extends PreorderJmmVisitor<JmmSymbolTable, Bo
             reports.add(new Report(
                     ReportType.ERROR,
                     Stage.SEMANTIC,
-                    Integer.parseInt(methodNode.get("line")),
-                    Integer.parseInt(methodNode.get("column")),
+                    methodNode.getLine(),
+                    methodNode.getColumn(),
                     "Method already defined. Last definition: " + e));
         }
 
@@ -0,0 +1,85 @@
+package pt.up.fe.comp.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable key of a method in {@link JmmSymbolTable}. The string form, which is the method signature used by the
+ * {@link pt.up.fe.comp.jmm.analysis.table.SymbolTable} interface, and the hash are computed once.
+ */
+public final class MethodSignature {
+    public static final MethodSignature MAIN = new MethodSignature("main", new Type("void", false),
+            List.of(new Type("String", true)));
+
+    private final String name;
+    private final Type returnType;
+    private final List<Type> parameterTypes;
+
+    private final String signature;
+    private final int hash;
+
+    private MethodSignature(String name, Type returnType, List<Type> parameterTypes) {
+        this.name = name;
+        this.returnType = returnType;
+        this.parameterTypes = Collections.unmodifiableList(parameterTypes);
+        this.signature = buildSignature();
+        this.hash = signature.hashCode();
+    }
+
+    public static MethodSignature of(String name, Type returnType, List<Symbol> parameters) {
+        List<Type> parameterTypes = new ArrayList<>(parameters.size());
+        for (Symbol parameter : parameters) {
+            parameterTypes.add(parameter.getType());
+        }
+
+        return new MethodSignature(name, returnType, parameterTypes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    public List<Type> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MethodSignature other = (MethodSignature) o;
+        return hash == other.hash && signature.equals(other.signature);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return signature;
+    }
+
+    private String buildSignature() {
+        StringBuilder parameters = new StringBuilder();
+
+        for (Type type : parameterTypes) {
+            parameters.append(type.toString()).append(" ");
+        }
+
+        return "JmmMethod{" +
+                "name='" + name + '\'' +
+                ", returnType=" + returnType +
+                ", parameters=" + parameters +
+                '}';
+    }
+}
@@ -13,18 +13,28 @@ import pt.up.fe.comp.jmm.report.Stage;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 
 public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
     JmmSymbolTable symbolTable;
-    List<String> variables;
+
+    // Traversal context, updated while visiting so that nodes do not have to search for their ancestors
+    // Method of the MethodBody or ReturnExpression being visited, null outside of them
+    private JmmMethod currentMethod;
+    private boolean inMain;
+    private boolean inMethodBody;
+    private boolean inReturnExpression;
+    // Locals of the current method that are definitely assigned where the visit is, indexed as in JmmMethod.getVars()
+    private BitSet initialized = new BitSet();
 
     public SemanticVisitor(JmmSymbolTable symbolTable){
         this.symbolTable = symbolTable;
-        this.variables = new ArrayList<>();
         //methods
+        addVisit("MainMethod", this::visitMainMethod);
         addVisit("MethodBody", this::visitMethodBody);
+        addVisit("ReturnExpression", this::visitReturnExpression);
         addVisit("MethodHeader", this::visitMethodHeader);
         addVisit("MemberArgs", this::visitMemberArgs);
         //expressions
@@ -54,8 +64,8 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
      * Visitors
      */
     private String defaultVisit(JmmNode node, List<Report> reports){
-        for (JmmNode child : node.getChildren())
-            visit(child, reports);
+        for (int i = 0; i < node.getNumChildren(); i++)
+            visit(node.getJmmChild(i), reports);
         return "";
     }
 
@@ -79,25 +89,17 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
 
         if (childType.equals(newType)) return newTypeArray + "Expression";
 
-        addSemanticErrorReport(reports, Integer.parseInt(node.get("line")),
-                Integer.parseInt(node.get("column")),
+        addSemanticErrorReport(reports, node.getLine(),
+                node.getColumn(),
                 "Array length must be of type int.");
 
         return "<Invalid>";
     }
 
     private String visitVarDeclaration(JmmNode node, List<Report> reports){
-        List<String> types = new ArrayList<>(Arrays.asList("int", "intArray", "boolean", symbolTable.getClassName()));
-
-        for (String imp: symbolTable.getImports()) {
-            String[] impList = imp.split("\\.");
-            String type = impList[impList.length-1];
-            types.add(type);
-        }
-
-        if (!types.contains(node.getJmmChild(0).get("type"))){
-            addSemanticErrorReport(reports, Integer.parseInt(node.getJmmChild(0).get("line")),
-                    Integer.parseInt(node.getJmmChild(0).get("column")),
+        if (!symbolTable.isKnownType(node.getJmmChild(0).get("type"))){
+            addSemanticErrorReport(reports, node.getJmmChild(0).getLine(),
+                    node.getJmmChild(0).getColumn(),
                     "Type \"" + node.getJmmChild(0).get("type") + "\" is not defined.");
             return "<Invalid>";
         }
@@ -119,7 +121,7 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
         Symbol s0 = symbolTable.getFieldByName(id0.get("name"));
 
         if (s0 != null && type0.equals("<Invalid>")) {
-            if (node.getAncestor("MainMethod").isPresent()){
+            if (inMain){
                 addSemanticErrorReport(reports, id1,
                         "Static method can't assign value to class field.");
                 return "<Invalid>";
@@ -129,24 +131,20 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
 
         String type1 = visit(id1, reports);
 
-        JmmMethod method = symbolTable.getParentMethodName(node);
+        JmmMethod method = currentMethod;
         if (type1.equals("<Invalid>"))
-            if (id1.getAttributes().contains("name") &&
-                    symbolTable.getParameter(method.toString(), id1.get("name")) != null)
-                type1 = symbolTable.getParameter(method.toString(), id1.get("name")).getType().getName();
+            if (id1.hasAttribute("name") &&
+                    symbolTable.getParameter(method.getSignature(), id1.get("name")) != null)
+                type1 = symbolTable.getParameter(method.getSignature(), id1.get("name")).getType().getName();
 
         String type1ExtendsImports = checkExtendsImport(type1);
 
         if (type1.equals("<Inherited>"))
             type1 = type0;
 
-        if ((type0.equals("intArray") && type1.equals("int")) || type0.equals(type1)) {
-            if (id0.getKind().equals("ID"))
-                variables.add(id0.get("name"));
-            else
-                variables.add(id0.getChildren().get(0).get("name"));
-        } else if (type1ExtendsImports == null ||
-                (type1ExtendsImports.equals("import") && type0.equals(symbolTable.getClassName()))) {
+        if (!(type0.equals("intArray") && type1.equals("int")) && !type0.equals(type1)
+                && (type1ExtendsImports == null ||
+                (type1ExtendsImports.equals("import") && type0.equals(symbolTable.getClassName())))) {
             addSemanticErrorReport(reports, id1, "Type mismatch in operations. '" + type0 + "' to '" + type1 + "'");
             return "<Invalid>";
         }
@@ -155,10 +153,7 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
     }
 
     private String visitID(JmmNode node, List<Report> reports){
-        JmmMethod method = symbolTable.getParentMethodName(node);
-
-        Optional<JmmNode> ancestor = node.getAncestor("MainMethod").isPresent() ?
-                node.getAncestor("MainMethod") : node.getAncestor("MethodBody");
+        JmmMethod method = currentMethod;
 
         boolean isArg = false;
 
@@ -166,24 +161,20 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
             isArgument(node.getJmmParent().getJmmParent().getJmmChild(1), node, isArg);
         }
 
-        Optional<JmmNode> argAncestor = node.getAncestor("MainMethod").isPresent() ?
-                node.getAncestor("MainMethodArguments") : node.getAncestor("InstanceMethodArguments");
-        argAncestor.ifPresent(jmmNode -> isArgument(jmmNode, node, isArg));
-
-        if (method != null && node.getAttributes().contains("name")) {
+        if (method != null && node.hasAttribute("name")) {
 
-            if (symbolTable.getLocalVar(method.toString(), node.get("name")) == null
+            if (symbolTable.getLocalVar(method.getSignature(), node.get("name")) == null
                     && !checkImports(node.get("name"))
                     && !isArg
                     && symbolTable.getFieldByName(node.get("name")) == null
-                    && symbolTable.getParameter(method.toString(), node.get("name")) == null) {
+                    && symbolTable.getParameter(method.getSignature(), node.get("name")) == null) {
                 addSemanticErrorReport(reports, node,
                         "Variable \"" + node.get("name") + "\" is not declared.");
                 return "<Invalid>";
             }
         }
 
-        if (ancestor.isEmpty()) return "";
+        if (!inMain && !inMethodBody) return "";
 
         if (method == null) {
             if (checkImports(node.get("name"))) return "";
@@ -195,17 +186,15 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
 
         if (name.isEmpty()) return node.get("type");
 
-        Symbol s = symbolTable.getLocalVar(method.toString(), name.get());
-
-        if (!isVariableInitialized(node, reports, method, s)) return "<Invalid>";
+        Symbol s = symbolTable.getLocalVar(method.getSignature(), name.get());
 
         if (s != null)
             return s.getType().isArray() ? s.getType().getName() + "ArrayExpression" : s.getType().getName();
         else if (checkExtendsImport(name.get()) != null)
             return name.get();
 
-        if(node.getAttributes().contains("name") &&
-                symbolTable.getParameter(method.toString(), node.get("name")) != null){
+        if(node.hasAttribute("name") &&
+                symbolTable.getParameter(method.getSignature(), node.get("name")) != null){
             return getNodeType(node).getName();
         }
 
@@ -286,13 +275,42 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
         visit(identifier, reports);
         return visit(method, reports);
     }
+    private String visitMainMethod(JmmNode node, List<Report> reports){
+        inMain = true;
+        String result = defaultVisit(node, reports);
+        inMain = false;
+        return result;
+    }
+
     private String visitMethodBody(JmmNode node, List<Report> reports){
-        variables.clear();
-        return defaultVisit(node, reports);
+        currentMethod = symbolTable.getMethodOf(node.getJmmParent());
+
+        inMethodBody = true;
+        String result = defaultVisit(node, reports);
+        inMethodBody = false;
+
+        // The return expression, visited after the body, is checked with the locals assigned at its end
+        initialized = new BitSet(currentMethod != null ? currentMethod.getVars().size() : 0);
+        checkAssignments(node, reports);
+        currentMethod = null;
+
+        return result;
+    }
+
+    private String visitReturnExpression(JmmNode node, List<Report> reports){
+        currentMethod = symbolTable.getMethodOf(node.getJmmParent());
+        checkAssignments(node, reports);
+
+        inReturnExpression = true;
+        String result = defaultVisit(node, reports);
+        inReturnExpression = false;
+        currentMethod = null;
+
+        return result;
     }
 
     private String visitMemberArgs(JmmNode node, List<Report> reports){
-        JmmMethod ancestor = symbolTable.getParentMethodName(node);
+        JmmMethod ancestor = currentMethod;
         if(ancestor == null) return "";
         int i = 0;
         for(JmmNode child: node.getChildren()){
@@ -300,17 +318,17 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
             if(child.getKind().equals("ID")){
                 String symbolName = child.get("name");
                 boolean isMain = ancestor.getName().equals("main");
-                Symbol symbol = isMain ? symbolTable.getFieldByName(symbolName) : symbolTable.getLocalVar(ancestor.toString(), symbolName) ;
+                Symbol symbol = isMain ? symbolTable.getFieldByName(symbolName) : symbolTable.getLocalVar(ancestor.getSignature(), symbolName) ;
                 if (symbolTable.getMethodByName(methodName) != null && symbol != null
                         && !symbolTable.getMethodByName(methodName).getParameters().get(i).getType().getName().equals(symbol.getType().getName())) {
-                    addSemanticErrorReport(reports, child.get("line") != null ? Integer.parseInt(child.get("line")) : 0,
-                            Integer.parseInt(child.get("column")),
+                    addSemanticErrorReport(reports, child.getLine(),
+                            child.getColumn(),
                             "Argument " + child.get("name") + " of type " +  symbol.getType() +  " is of wrong type, " +
                                     symbolTable.getMethodByName(methodName).getParameters().get(i).getType().getName() + " expected at " +  methodName + " method.");
                 }
-            } else if (child.getAttributes().contains("type")) {
+            } else if (child.hasAttribute("type")) {
                 String childType = child.get("type");
-                if (child.getAttributes().contains("value")){
+                if (child.hasAttribute("value")){
                     if (child.get("value").equals("this")) {
                         childType = symbolTable.getClassName();
                     }
@@ -320,7 +338,7 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
                             && i < symbolTable.getMethodByName(methodName).getParameters().size()
                             && !symbolTable.getMethodByName(methodName).getParameters().get(i).getType().getName().equals(childType)) {
 
-                        addSemanticErrorReport(reports, child.get("line") != null ? Integer.parseInt(child.get("line")) : 0, Integer.parseInt(child.get("column")),
+                        addSemanticErrorReport(reports, child.getLine(), child.getColumn(),
                                 "Argument is of wrong type, " + symbolTable.getMethodByName(methodName).getParameters().get(i).getType().getName() + " expected.");
                     }
                 }
@@ -338,7 +356,7 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
      * Expression Visitors
      */
     private String visitArrayExpression(JmmNode node, List<Report> reports){
-        JmmMethod method = symbolTable.getParentMethodName(node);
+        JmmMethod method = currentMethod;
         JmmNode nodeToVisit;
         String name;
         Type type;
@@ -347,11 +365,11 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
             nodeToVisit = node.getJmmParent().getJmmChild(0);
             String assignedType = visit(node.getJmmParent().getJmmChild(2), reports);
 
-            Symbol s = symbolTable.getLocalVar(method.toString(), name);
+            Symbol s = symbolTable.getLocalVar(method.getSignature(), name);
             if (s!= null) {
-                if (!symbolTable.getLocalVar(method.toString(), name).getType().getName().equals(assignedType)) {
+                if (!symbolTable.getLocalVar(method.getSignature(), name).getType().getName().equals(assignedType)) {
                     addSemanticErrorReport(reports, node, "Array can't be assigned '" + assignedType +
-                            "' variables when its type is '" + symbolTable.getLocalVar(method.toString(), name).getType().getName() + "'.");
+                            "' variables when its type is '" + symbolTable.getLocalVar(method.getSignature(), name).getType().getName() + "'.");
                     return "<Invalid>";
                 }
             }
@@ -404,7 +422,7 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
         JmmNode child0 = node.getJmmChild(0);
 
         if (!isThis(child0).isEmpty()) {
-            if (node.getAncestor("MainMethod").isPresent()){
+            if (inMain){
                 addSemanticErrorReport(reports, node,
                         "Static method main can't access 'this'.");
                 return "<Invalid>";
@@ -413,17 +431,15 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
             if (symbolTable.getSuper() == null){
                 if (symbolTable.getMethodByName(expressionNode.getJmmChild(0).get("name")) == null) {
                     addSemanticErrorReport(reports,
-                            expressionNode.getJmmChild(0).get("line") != null ?
-                                    Integer.parseInt(expressionNode.getJmmChild(0).get("line")) : 0,
-                            Integer.parseInt(expressionNode.getJmmChild(0).get("column")),
+                            expressionNode.getJmmChild(0).getLine(),
+                            expressionNode.getJmmChild(0).getColumn(),
                             "Method " + expressionNode.getJmmChild(0).get("name") + "() isn't declared.");
                     return "<Invalid>";
                 } else if (expressionNode.getJmmChild(1).getChildren().size()
                         != symbolTable.getMethodByName(expressionNode.getJmmChild(0).get("name")).getParameters().size()) {
                     addSemanticErrorReport(reports,
-                            expressionNode.getJmmChild(0).get("line") != null ?
-                                    Integer.parseInt(expressionNode.getJmmChild(0).get("line")) : 0,
-                            Integer.parseInt(expressionNode.getJmmChild(0).get("column")),
+                            expressionNode.getJmmChild(0).getLine(),
+                            expressionNode.getJmmChild(0).getColumn(),
                             "Method " + expressionNode.getJmmChild(0).get("name")
                                     + "() has the wrong number of arguments");
                     return "<Invalid>";
@@ -434,12 +450,12 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
             Type childT = getNodeType(node.getJmmChild(0));
             String childType = childT == null ? visit(node.getJmmChild(0), reports) : getNodeType(node.getJmmChild(0)).getName();
             if (childType.equals("") || childType.equals("<Invalid>")) return "<Invalid>";
-            JmmMethod method = symbolTable.getParentMethodName(node);
+            JmmMethod method = currentMethod;
 
             if ((childType.equals(symbolTable.getClassName()) || childType.equals(symbolTable.getSuper())) && symbolTable.getSuper()!=null)
                 if (node.getJmmChild(1).getKind().equals("CallExpression")) {
                     JmmNode calledMethod = node.getJmmChild(1).getJmmChild(0);
-                    if (calledMethod.getAttributes().contains("name")
+                    if (calledMethod.hasAttribute("name")
                             &&  symbolTable.getMethodByName(calledMethod.get("name")) == null)
                         return "<Inherited>";
                 }
@@ -447,26 +463,24 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
                 return "<Inherited>";
 
             String symbolName = child0.get("name");
-            Symbol symbol = symbolTable.getLocalVar(method.toString(), symbolName);
+            Symbol symbol = symbolTable.getLocalVar(method.getSignature(), symbolName);
             if (symbol != null) {
                 if (checkExtendsImport(childType) == null) {
                     if (symbolTable.getMethodByName(node.getJmmChild(1).getJmmChild(0).get("name")) == null) {
                         addSemanticErrorReport(reports,
-                                node.getJmmChild(1).getJmmChild(0).get("line") != null ?
-                                        Integer.parseInt(node.getJmmChild(1).getJmmChild(0).get("line")) : 0,
-                                Integer.parseInt(node.getJmmChild(1).getJmmChild(0).get("column")),
+                                node.getJmmChild(1).getJmmChild(0).getLine(),
+                                node.getJmmChild(1).getJmmChild(0).getColumn(),
                                 "Method " + node.getJmmChild(1).getJmmChild(0).get("name")
                                         + "() isn't declared for this type.");
                         return "<Invalid>";
                     }
                 }
-                if (node.getAncestor("ReturnExpression").isPresent()) {
+                if (inReturnExpression) {
                     if (method.getReturnType().getName().equals(childType))
                         return childType;
                     addSemanticErrorReport(reports,
-                            node.getJmmChild(1).getJmmChild(0).get("line") != null ?
-                                    Integer.parseInt(node.getJmmChild(1).getJmmChild(0).get("line")) : 0,
-                            Integer.parseInt(node.getJmmChild(1).getJmmChild(0).get("column")),
+                            node.getJmmChild(1).getJmmChild(0).getLine(),
+                            node.getJmmChild(1).getJmmChild(0).getColumn(),
                             "Return type expected was '" +  method.getReturnType().getName() + "' and got '"
                                     + childType + "'.");
                     return "<Invalid>";
@@ -481,9 +495,8 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
                     if (node.getChildren().size() == 1) {
                         return "int";
                     } else addSemanticErrorReport(reports,
-                            node.getJmmChild(0).getJmmChild(1).get("line") != null ?
-                                    Integer.parseInt(node.getJmmChild(0).getJmmChild(1).get("line")) : 0,
-                            Integer.parseInt(node.getJmmChild(0).getJmmChild(1).get("column")),
+                            node.getJmmChild(0).getJmmChild(1).getLine(),
+                            node.getJmmChild(0).getJmmChild(1).getColumn(),
                             "Method " + node.getJmmChild(0).getJmmChild(1).get("name")
                                     + "() isn't declared.");
                     return "<Invalid>";
@@ -533,25 +546,80 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
     }
 
     /**
-     * Validations
+     * Definite Assignment
      */
-    private boolean isVariableInitialized(JmmNode node, List<Report>  reports, JmmMethod method, Symbol s){
-        if (node.getJmmParent().getKind().equals("BinOp")
-                || (node.getJmmParent().getKind().equals("IDAssignment")
-                && !node.getJmmParent().getJmmChild(0).equals(node))) {
-            if (!node.getJmmParent().getJmmChild(0).equals(node)
-                    && !variables.contains(node.get("name"))
-                    && !checkMethodParameter(node, method)
-                    && !symbolTable.getFields().contains(s)) {
-                addSemanticErrorReport(reports, node,
-                        "Variable \"" + node.get("name") + "\" has not been initialized.");
-                return false;
+
+    /**
+     * Reports the reads of locals of the current method that are not definitely assigned where they are, going
+     * through the statements of the node in order. Storing into an array element reads the array, so it does not
+     * assign it.
+     */
+    private void checkAssignments(JmmNode node, List<Report> reports) {
+        if (currentMethod == null) return;
+
+        switch (node.getKind()) {
+            case "VarDeclaration":
+                return;
+            case "IDAssignment":
+                checkAssignments(node.getJmmChild(1), reports);
+                markInitialized(node.getJmmChild(0).get("name"));
+                return;
+            case "CallExpression":
+                // The first child is the name of the method
+                checkAssignments(node.getJmmChild(1), reports);
+                return;
+            case "IfStatement": {
+                checkAssignments(node.getJmmChild(0), reports);
+
+                BitSet beforeBranches = (BitSet) initialized.clone();
+                checkAssignments(node.getJmmChild(1), reports);
+                BitSet afterIfBody = initialized;
+
+                initialized = beforeBranches;
+                checkAssignments(node.getJmmChild(2), reports);
+
+                // Only the variables assigned in both branches are assigned after the statement
+                initialized.and(afterIfBody);
+                return;
             }
+            case "WhileStatement": {
+                checkAssignments(node.getJmmChild(0), reports);
+
+                BitSet beforeBody = (BitSet) initialized.clone();
+                checkAssignments(node.getJmmChild(1), reports);
 
+                // The body may not run at all
+                initialized = beforeBody;
+                return;
+            }
+            case "ID":
+                if (node.hasAttribute("name") && !isInitialized(node.get("name"))) {
+                    addSemanticErrorReport(reports, node,
+                            "Variable \"" + node.get("name") + "\" has not been initialized.");
+                }
+                return;
+            default:
+                for (int i = 0; i < node.getNumChildren(); i++)
+                    checkAssignments(node.getJmmChild(i), reports);
         }
-        return true;
     }
 
+    private void markInitialized(String name) {
+        int index = currentMethod.getVarIndex(name);
+        if (index >= 0) initialized.set(index);
+    }
+
+    /**
+     * @return whether the name is not a local of the current method, or is a local that is definitely assigned
+     */
+    private boolean isInitialized(String name) {
+        int index = currentMethod.getVarIndex(name);
+        return index < 0 || initialized.get(index);
+    }
+
+    /**
+     * Validations
+     */
     private void isArgument(JmmNode parent, JmmNode child, boolean isArg){
         for(JmmNode arg: parent.getChildren()) {
             if (arg.getKind().equals("ID"))
@@ -560,16 +628,8 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
         }
     }
 
-    private boolean checkMethodParameter(JmmNode node,  JmmMethod method){
-        for (Symbol parameter : method.getParameters()){
-            if (parameter.getName().equals(node.get("name")))
-                return true;
-        }
-        return false;
-    }
-
     private String checkExtendsImport(String nodeType){
-        if (symbolTable.getImports().contains(nodeType)) return "import";
+        if (symbolTable.hasImport(nodeType)) return "import";
         if (symbolTable.getSuper() != null && nodeType.equals(symbolTable.getClassName())) return "extends";
         if (nodeType.equals(symbolTable.getSuper())) return "extends";
         return null;
@@ -584,15 +644,15 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
 
     private Type getNodeType(JmmNode node) {
         Type type = null;
-        JmmMethod method = symbolTable.getParentMethodName(node);
-        if (node.getAttributes().contains("name")) {
+        JmmMethod method = currentMethod;
+        if (node.hasAttribute("name")) {
             String varName = node.get("name");
-            if (symbolTable.getLocalVar(method.toString(), varName) != null)
-                type = symbolTable.getLocalVar(method.toString(), varName).getType();
+            if (symbolTable.getLocalVar(method.getSignature(), varName) != null)
+                type = symbolTable.getLocalVar(method.getSignature(), varName).getType();
             else if (symbolTable.getFieldByName(varName) != null)
                 type = symbolTable.getFieldByName(varName).getType();
-            else if (symbolTable.getParameter(method.toString(), varName) != null)
-                type = symbolTable.getParameter(method.toString(), varName).getType();
+            else if (symbolTable.getParameter(method.getSignature(), varName) != null)
+                type = symbolTable.getParameter(method.getSignature(), varName).getType();
 
         }
 
@@ -600,11 +660,7 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
     }
 
     private boolean checkImports(String variableName){
-        List<String> imports = symbolTable.getImports();
-        for (String imp : imports) {
-            if (imp.equals(variableName)) return true;
-        }
-        return false;
+        return symbolTable.hasImport(variableName);
     }
 
     /**
@@ -622,8 +678,8 @@ public class SemanticVisitor extends AJmmVisitor<List<Report>, String> {
         reports.add(new Report(
                 ReportType.ERROR,
                 Stage.SEMANTIC,
-                Integer.parseInt(node.get("line")),
-                Integer.parseInt(node.get("column")),
+                node.getLine(),
+                node.getColumn(),
                 message
         ));
     }
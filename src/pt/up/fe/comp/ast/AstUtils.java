@@ -18,12 +18,17 @@ public abstract class AstUtils {
         return type;
     }
 
+    public static boolean isMethod(JmmNode node) {
+        return node.getKind().equals("MainMethod") || node.getKind().equals("InstanceMethod");
+    }
+
     public static JmmNode getFirstOfKind(JmmNode node, String kind){
         if (node.getKind().equals(kind)){
             return node;
         }
 
-        for(JmmNode child : node.getChildren()){
+        for(int i = 0; i < node.getNumChildren(); i++){
+            JmmNode child = node.getJmmChild(i);
             if(child.getKind().equals(kind)){
                 return child;
             }
@@ -11,8 +11,7 @@ public class LineColAnnotatorVisitor extends PreorderJmmVisitor<Integer, Integer
 
     private Integer annotateLineCol(JmmNode node, Integer dummy){
         var parserNode = (Node) node;
-        node.put("line", Integer.toString(parserNode.getBeginLine()));
-        node.put("column", Integer.toString(parserNode.getBeginColumn()));
+        node.putLineCol(parserNode.getBeginLine(), parserNode.getBeginColumn());
         return 0;
     }
 }
\ No newline at end of file
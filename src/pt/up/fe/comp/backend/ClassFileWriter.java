@@ -0,0 +1,639 @@
+package pt.up.fe.comp.backend;
+
+import org.specs.comp.ollir.*;
+import pt.up.fe.specs.util.exceptions.NotImplementedException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Alternative to {@link Jasmin} that writes the class file directly from the OLLIR class, instead of generating Jasmin
+ * text that has to be parsed again by the assembler. Instruction selection is the same as in {@link Jasmin}.
+ *
+ * <p>
+ * The class file version is the same one Jasmin uses (45.3), which does not need StackMapTable attributes.
+ */
+public class ClassFileWriter {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MINOR_VERSION = 3;
+    private static final int MAJOR_VERSION = 45;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private ClassUnit ollirClass;
+    private Map<String, String> fullyQualifiedNames;
+    private HashMap<String, Descriptor> variableTable;
+    private String superClassName;
+    private ConstantPool constantPool;
+    private CodeBuilder code;
+
+    private int labelCount;
+
+    public byte[] build(ClassUnit ollirClass) throws OllirErrorException {
+        this.ollirClass = ollirClass;
+        this.constantPool = new ConstantPool();
+        this.labelCount = 0;
+
+        this.ollirClass.checkMethodLabels();
+        this.ollirClass.buildCFGs();
+        this.ollirClass.buildVarTables();
+
+        setImportNames();
+
+        this.superClassName = this.ollirClass.getSuperClass() != null ?
+                this.fullyQualifiedNames.get(this.ollirClass.getSuperClass()) : "java/lang/Object";
+
+        try {
+            // The constant pool comes first in the file but is only complete after the class body is written
+            ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+            DataOutputStream body = new DataOutputStream(bodyBytes);
+
+            body.writeShort(ACC_PUBLIC | ACC_SUPER);
+            body.writeShort(constantPool.classRef(this.ollirClass.getClassName()));
+            body.writeShort(constantPool.classRef(superClassName));
+            body.writeShort(0); // interfaces
+
+            body.writeShort(this.ollirClass.getFields().size());
+            for (Field field : this.ollirClass.getFields())
+                buildClassField(field, body);
+
+            body.writeShort(this.ollirClass.getMethods().size());
+            for (Method method : this.ollirClass.getMethods())
+                buildClassMethod(method, body);
+
+            body.writeShort(0); // attributes
+
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            DataOutputStream classFile = new DataOutputStream(classBytes);
+            classFile.writeInt(MAGIC);
+            classFile.writeShort(MINOR_VERSION);
+            classFile.writeShort(MAJOR_VERSION);
+            constantPool.write(classFile);
+            bodyBytes.writeTo(classFile);
+
+            return classBytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write class file for " + this.ollirClass.getClassName(), e);
+        }
+    }
+
+    private void setImportNames(){
+        this.fullyQualifiedNames = new HashMap<>();
+
+        for(var importString : this.ollirClass.getImports()){
+            var splittedImport = importString.split("\\.");
+            var lastName = splittedImport.length == 0 ? importString : splittedImport[splittedImport.length - 1];
+
+            this.fullyQualifiedNames.put(lastName, importString.replace('.', '/'));
+        }
+    }
+
+    private void buildClassField(Field field, DataOutputStream out) throws IOException {
+        int access = accessFlags(field.getFieldAccessModifier());
+        if(field.isStaticField()) access |= ACC_STATIC;
+        if(field.isFinalField()) access |= ACC_FINAL;
+
+        out.writeShort(access);
+        out.writeShort(constantPool.utf8(field.getFieldName()));
+        out.writeShort(constantPool.utf8(buildTypes(field.getFieldType())));
+        out.writeShort(0); // attributes
+    }
+
+    private String buildTypes(Type type) {
+        StringBuilder typeCode = new StringBuilder();
+        ElementType elementType = type.getTypeOfElement();
+
+        if(elementType == ElementType.ARRAYREF){
+            elementType = ((ArrayType) type).getArrayType();
+            typeCode.append("[");
+        }
+
+        if((elementType == ElementType.OBJECTREF || elementType == ElementType.CLASS)){
+            String className = type instanceof ClassType ?
+                    ((ClassType) type).getName() : this.ollirClass.getClassName();
+
+            typeCode.append("L").append(getFullyQualifiedName(className)).append(";");
+            return typeCode.toString();
+        }
+
+        typeCode.append(buildTypes(elementType));
+
+        return typeCode.toString();
+    }
+
+    private String buildTypes(ElementType elementType) {
+        switch (elementType) {
+            case INT32:
+                return "I";
+            case BOOLEAN:
+                return "Z";
+            case STRING:
+                return "Ljava/lang/String;";
+            case VOID:
+                return "V";
+            default:
+                throw new NotImplementedException(elementType);
+        }
+    }
+
+    private String getFullyQualifiedName(String className) {
+        String fullyQualifiedClassName = this.fullyQualifiedNames.get(className);
+        return fullyQualifiedClassName != null ? fullyQualifiedClassName : className;
+    }
+
+    private int accessFlags(AccessModifiers accessModifier) {
+        switch (accessModifier) {
+            case PUBLIC:
+                return ACC_PUBLIC;
+            case PRIVATE:
+                return ACC_PRIVATE;
+            case PROTECTED:
+                return ACC_PROTECTED;
+            default:
+                return 0;
+        }
+    }
+
+    private void buildClassMethod(Method method, DataOutputStream out) throws IOException {
+        this.variableTable = method.getVarTable();
+        this.code = new CodeBuilder();
+
+        int access = accessFlags(method.getMethodAccessModifier());
+        if(method.isConstructMethod()) access |= ACC_PUBLIC;
+        if(method.isStaticMethod()) access |= ACC_STATIC;
+        if(method.isFinalMethod()) access |= ACC_FINAL;
+
+        String descriptor = "(" + method.getParams().stream()
+                .map(element -> buildTypes(element.getType()))
+                .collect(Collectors.joining()) + ")" + buildTypes(method.getReturnType());
+
+        Map<Instruction, List<String>> labels = Jasmin.getLabelsByInstruction(method);
+        for(Instruction instruction : method.getInstructions()) {
+            for(String label : labels.getOrDefault(instruction, List.of()))
+                code.label(label);
+
+            buildMethodInstructions(instruction);
+
+            if(instruction.getInstType() == InstructionType.CALL)
+                if(((CallInstruction) instruction).getReturnType().getTypeOfElement() != ElementType.VOID)
+                    code.op(CodeBuilder.POP, -1);
+        }
+
+        if (method.isConstructMethod() || method.getReturnType().getTypeOfElement() == ElementType.VOID)
+            code.op(CodeBuilder.RETURN, 0);
+
+        // 'this' or the first argument of a static method always take up register 0
+        int maxLocals = 1;
+        for (Descriptor d : variableTable.values())
+            maxLocals = Math.max(maxLocals, d.getVirtualReg() + 1);
+
+        byte[] bytecode = code.toByteArray();
+
+        out.writeShort(access);
+        out.writeShort(constantPool.utf8(method.isConstructMethod() ? "<init>" : method.getMethodName()));
+        out.writeShort(constantPool.utf8(descriptor));
+
+        out.writeShort(1); // attributes
+        out.writeShort(constantPool.utf8("Code"));
+        out.writeInt(12 + bytecode.length);
+        out.writeShort(code.getMaxStack());
+        out.writeShort(maxLocals);
+        out.writeInt(bytecode.length);
+        out.write(bytecode);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    private void buildMethodInstructions(Instruction instruction){
+
+        switch(instruction.getInstType()){
+            case ASSIGN:
+                buildAssignInstruction((AssignInstruction) instruction);
+                break;
+            case CALL:
+                buildCallInstruction((CallInstruction) instruction);
+                break;
+            case GOTO:
+                code.jump(CodeBuilder.GOTO, ((GotoInstruction) instruction).getLabel(), 0);
+                break;
+            case BRANCH:
+                buildBranchInstruction((CondBranchInstruction) instruction);
+                break;
+            case RETURN:
+                buildReturnInstruction((ReturnInstruction) instruction);
+                break;
+            case PUTFIELD:
+                buildPutFieldInstruction((PutFieldInstruction) instruction);
+                break;
+            case GETFIELD:
+                buildGetFieldInstruction((GetFieldInstruction) instruction);
+                break;
+            case BINARYOPER:
+                buildBinaryOperatorInstruction((BinaryOpInstruction) instruction);
+                break;
+            case NOPER:
+                pushElement(((SingleOpInstruction) instruction).getSingleOperand());
+                break;
+            case UNARYOPER:
+                buildUnaryOperatorInstruction((UnaryOpInstruction) instruction);
+                break;
+            default:
+                throw new NotImplementedException(instruction.getInstType());
+        }
+
+    }
+
+    private String newLabel(String prefix) {
+        return prefix + "_" + this.labelCount++;
+    }
+
+    /**
+     * Turns the value on top of the stack into its boolean negation.
+     */
+    private void buildNot() {
+        String labelTrue = newLabel("True");
+        String labelContinue = newLabel("Continue");
+
+        code.jump(CodeBuilder.IFGT, labelTrue, -1);
+        code.op(CodeBuilder.ICONST_1, 1);
+        code.jump(CodeBuilder.GOTO, labelContinue, 0);
+        code.label(labelTrue);
+        code.op(CodeBuilder.ICONST_0, 1);
+        code.label(labelContinue);
+    }
+
+    /**
+     * Compares the two ints on top of the stack, leaving 1 if the comparison holds and 0 otherwise.
+     */
+    private void buildComparison(int compareOpcode) {
+        String labelTrue = newLabel("True");
+        String labelContinue = newLabel("Continue");
+
+        code.jump(compareOpcode, labelTrue, -2);
+        code.op(CodeBuilder.ICONST_0, 1);
+        code.jump(CodeBuilder.GOTO, labelContinue, 0);
+        code.label(labelTrue);
+        code.op(CodeBuilder.ICONST_1, 1);
+        code.label(labelContinue);
+    }
+
+    private void buildUnaryOperatorInstruction(UnaryOpInstruction instruction) {
+        switch (instruction.getOperation().getOpType()){
+            case NOT: case NOTB:
+                pushElement(instruction.getOperand());
+                buildNot();
+                break;
+            default:
+                throw new NotImplementedException(instruction.getOperation().getOpType());
+        }
+    }
+
+    private void buildBinaryOperatorInstruction(BinaryOpInstruction instruction) {
+        Element leftOperand = instruction.getLeftOperand();
+        Element rightOperand = instruction.getRightOperand();
+        OperationType opType = instruction.getOperation().getOpType();
+
+        if(opType == OperationType.NOT || opType == OperationType.NOTB){
+            pushElement(leftOperand);
+            buildNot();
+            return;
+        }
+
+        pushElement(leftOperand);
+        pushElement(rightOperand);
+
+        switch(opType){
+            case ANDB:
+                code.op(CodeBuilder.IAND, -1);
+                break;
+            case ORB:
+                code.op(CodeBuilder.IOR, -1);
+                break;
+            case EQ:
+                buildComparison(CodeBuilder.IF_ICMPEQ);
+                break;
+            case LTH:
+                buildComparison(CodeBuilder.IF_ICMPLT);
+                break;
+            case GTE:
+                buildComparison(CodeBuilder.IF_ICMPGE);
+                break;
+            case ADD:
+                code.op(CodeBuilder.IADD, -1);
+                break;
+            case MUL:
+                code.op(CodeBuilder.IMUL, -1);
+                break;
+            case DIV:
+                code.op(CodeBuilder.IDIV, -1);
+                break;
+            case SUB:
+                code.op(CodeBuilder.ISUB, -1);
+                break;
+            default:
+                throw new NotImplementedException(opType);
+        }
+    }
+
+    private void buildReturnInstruction(ReturnInstruction instruction) {
+        // Void methods get their return at the end of the method
+        if (!instruction.hasReturnValue()) return;
+
+        Element operand = instruction.getOperand();
+        pushElement(operand);
+
+        boolean isInt = operand.getType().getTypeOfElement() == ElementType.INT32
+                || operand.getType().getTypeOfElement() == ElementType.BOOLEAN;
+        code.op(isInt ? CodeBuilder.IRETURN : CodeBuilder.ARETURN, -1);
+    }
+
+    private int fieldRef(Element classOperand, Operand field) {
+        String fieldClass = ((Operand) classOperand).getName();
+        String className = Objects.equals(fieldClass, "this") ? this.ollirClass.getClassName() : fieldClass;
+
+        return constantPool.fieldRef(className, field.getName(), buildTypes(field.getType()));
+    }
+
+    private void buildPutFieldInstruction(PutFieldInstruction instruction) {
+        Operand field = ((Operand) instruction.getSecondOperand());
+
+        pushElement(instruction.getFirstOperand());
+        pushElement(instruction.getThirdOperand());
+        code.opShort(CodeBuilder.PUTFIELD, fieldRef(instruction.getFirstOperand(), field), -2);
+    }
+
+    private void buildGetFieldInstruction(GetFieldInstruction instruction) {
+        Operand field = ((Operand) instruction.getSecondOperand());
+
+        pushElement(instruction.getFirstOperand());
+        code.opShort(CodeBuilder.GETFIELD, fieldRef(instruction.getFirstOperand(), field), 0);
+    }
+
+    private void buildBranchInstruction(CondBranchInstruction instruction) {
+        Instruction condition = instruction.getCondition();
+        Element leftOperand = instruction.getOperands().get(0);
+
+        if(condition.getInstType() == InstructionType.NOPER){
+            pushElement(leftOperand);
+            code.jump(CodeBuilder.IFNE, instruction.getLabel(), -1);
+            return;
+        }
+
+        if(condition.getInstType() == InstructionType.UNARYOPER){
+            pushElement(leftOperand);
+            code.jump(CodeBuilder.IFEQ, instruction.getLabel(), -1);
+            return;
+        }
+
+        Element rightOperand = instruction.getOperands().get(1);
+        OperationType opType = ((BinaryOpInstruction) condition).getOperation().getOpType();
+
+        if(opType == OperationType.ANDB){
+            String labelFalse = newLabel("Condition");
+
+            pushElement(leftOperand);
+            code.jump(CodeBuilder.IFEQ, labelFalse, -1);
+            pushElement(rightOperand);
+            code.jump(CodeBuilder.IFNE, instruction.getLabel(), -1);
+            code.label(labelFalse);
+            return;
+        }
+
+        if(opType == OperationType.ORB){
+            pushElement(leftOperand);
+            code.jump(CodeBuilder.IFNE, instruction.getLabel(), -1);
+            pushElement(rightOperand);
+            code.jump(CodeBuilder.IFNE, instruction.getLabel(), -1);
+            return;
+        }
+
+        pushElement(leftOperand);
+        pushElement(rightOperand);
+
+        switch (opType){
+            case GTE:
+                code.jump(CodeBuilder.IF_ICMPGE, instruction.getLabel(), -2);
+                break;
+            case LTH:
+                code.jump(CodeBuilder.IF_ICMPLT, instruction.getLabel(), -2);
+                break;
+            case EQ:
+                code.jump(CodeBuilder.IF_ICMPEQ, instruction.getLabel(), -2);
+                break;
+            case NOTB: case NEQ:
+                code.jump(CodeBuilder.IF_ICMPNE, instruction.getLabel(), -2);
+                break;
+            default:
+                throw new NotImplementedException("Condition Operation Not Implemented: " + opType);
+        }
+    }
+
+    private void buildAssignInstruction(AssignInstruction instruction) {
+        Operand operand = (Operand) instruction.getDest();
+        Type destType = operand.getType();
+        Descriptor destVariable = this.variableTable.get(operand.getName());
+
+        // Increment Assignment
+        if(instruction.getRhs().getInstType() == InstructionType.BINARYOPER
+                && buildIncrement(operand, destVariable, (BinaryOpInstruction) instruction.getRhs()))
+            return;
+
+        // Array Assignment
+        if(destVariable.getVarType().getTypeOfElement() == ElementType.ARRAYREF
+                && destType.getTypeOfElement() != ElementType.ARRAYREF){
+            Element index = ((ArrayOperand) operand).getIndexOperands().get(0);
+
+            pushElementDescriptor(destVariable);
+            pushElement(index);
+            buildMethodInstructions(instruction.getRhs());
+            code.op(CodeBuilder.IASTORE, -3);
+            return;
+        }
+
+        buildMethodInstructions(instruction.getRhs());
+
+        boolean isInt = destType.getTypeOfElement() == ElementType.INT32
+                || destType.getTypeOfElement() == ElementType.BOOLEAN;
+        code.local(isInt ? CodeBuilder.ISTORE : CodeBuilder.ASTORE, destVariable.getVirtualReg());
+    }
+
+    /**
+     * Uses iinc for assignments like "a = a + 1" or "a = a - 1".
+     *
+     * @return true if the assignment was emitted
+     */
+    private boolean buildIncrement(Operand dest, Descriptor destVariable, BinaryOpInstruction binaryOperation) {
+        OperationType opType = binaryOperation.getOperation().getOpType();
+        if (opType != OperationType.ADD && opType != OperationType.SUB) return false;
+
+        Element left = binaryOperation.getLeftOperand();
+        Element right = binaryOperation.getRightOperand();
+
+        LiteralElement literal;
+        if (!left.isLiteral() && right.isLiteral() && ((Operand) left).getName().equals(dest.getName())) {
+            literal = (LiteralElement) right;
+        } else if (opType == OperationType.ADD && left.isLiteral() && !right.isLiteral()
+                && ((Operand) right).getName().equals(dest.getName())) {
+            literal = (LiteralElement) left;
+        } else {
+            return false;
+        }
+
+        int value = Integer.parseInt(literal.getLiteral());
+        if (opType == OperationType.SUB) value = -value;
+        if (value < -128 || value > 127) return false;
+
+        code.iinc(destVariable.getVirtualReg(), value);
+        return true;
+    }
+
+    private String getMethodDescriptor(CallInstruction instruction) {
+        return "(" + instruction.getListOfOperands().stream()
+                .map(operand -> buildTypes(operand.getType()))
+                .collect(Collectors.joining()) + ")" + buildTypes(instruction.getReturnType());
+    }
+
+    private String getMethodName(CallInstruction instruction) {
+        return ((LiteralElement) instruction.getSecondArg()).getLiteral().replace("\"", "");
+    }
+
+    private void buildCallInstruction(CallInstruction instruction){
+        List<Element> operands = instruction.getListOfOperands() != null ?
+                instruction.getListOfOperands() : new ArrayList<>();
+        int returnSize = instruction.getReturnType().getTypeOfElement() == ElementType.VOID ? 0 : 1;
+
+        switch(instruction.getInvocationType()){
+            case invokevirtual: {
+                pushElement(instruction.getFirstArg());
+                for(Element operand: operands)
+                    pushElement(operand);
+
+                String virtualClass = ((ClassType) instruction.getFirstArg().getType()).getName();
+                String className = Objects.equals(virtualClass, "this")
+                        ? this.ollirClass.getClassName() : virtualClass;
+
+                int method = constantPool.methodRef(className, getMethodName(instruction), getMethodDescriptor(instruction));
+                code.opShort(CodeBuilder.INVOKEVIRTUAL, method, returnSize - operands.size() - 1);
+                break;
+            }
+            case invokespecial: {
+                pushElement(instruction.getFirstArg());
+                for(Element operand: operands)
+                    pushElement(operand);
+
+                String initClass = ((ClassType) instruction.getFirstArg().getType()).getName();
+                String className = instruction.getFirstArg().getType().getTypeOfElement() == ElementType.THIS
+                        ? this.superClassName : initClass;
+
+                int method = constantPool.methodRef(className, "<init>", getMethodDescriptor(instruction));
+                code.opShort(CodeBuilder.INVOKESPECIAL, method, returnSize - operands.size() - 1);
+                break;
+            }
+            case invokestatic: {
+                for(Element operand: operands)
+                    pushElement(operand);
+
+                String staticClass = ((Operand) instruction.getFirstArg()).getName();
+                String className = Objects.equals(staticClass, "this")
+                        ? this.ollirClass.getClassName() : staticClass;
+
+                int method = constantPool.methodRef(className, getMethodName(instruction), getMethodDescriptor(instruction));
+                code.opShort(CodeBuilder.INVOKESTATIC, method, returnSize - operands.size());
+                break;
+            }
+            case NEW:
+                for(Element operand: operands)
+                    pushElement(operand);
+
+                if(instruction.getReturnType().getTypeOfElement() == ElementType.OBJECTREF){
+                    int classRef = constantPool.classRef(((Operand) instruction.getFirstArg()).getName());
+                    code.opShort(CodeBuilder.NEW, classRef, 1);
+                    code.op(CodeBuilder.DUP, 1);
+                }
+                else if (instruction.getReturnType().getTypeOfElement() == ElementType.ARRAYREF){
+                    if(operands.get(0).getType().getTypeOfElement() == ElementType.INT32)
+                        code.opByte(CodeBuilder.NEWARRAY, CodeBuilder.T_INT, 0);
+                    else
+                        throw new NotImplementedException("New Array with Type"
+                                + operands.get(0).getType().getTypeOfElement());
+                }
+                else
+                    throw new NotImplementedException("New with type "
+                            + instruction.getFirstArg().getType().getTypeOfElement());
+                break;
+            case arraylength:
+                pushElement(instruction.getFirstArg());
+                code.op(CodeBuilder.ARRAYLENGTH, 0);
+                break;
+            case ldc:
+                pushElement(instruction.getFirstArg());
+                break;
+            default:
+                throw new NotImplementedException(instruction.getInvocationType());
+        }
+    }
+
+    private void pushElement(Element element) {
+        // Literal Element
+        if(element.isLiteral()) {
+            pushLiteral((LiteralElement) element);
+            return;
+        }
+
+        String operandName = ((Operand) element).getName();
+        Descriptor descriptor = this.variableTable.get(operandName);
+
+        if(descriptor == null && element.getType().getTypeOfElement() == ElementType.BOOLEAN) {
+            code.op(operandName.equals("false") ? CodeBuilder.ICONST_0 : CodeBuilder.ICONST_1, 1);
+            return;
+        }
+
+        // Array Element
+        if(descriptor != null && element instanceof ArrayOperand
+                && descriptor.getVarType().getTypeOfElement() == ElementType.ARRAYREF
+                && element.getType().getTypeOfElement() != ElementType.ARRAYREF){
+            pushElementDescriptor(descriptor);
+            pushElement(((ArrayOperand) element).getIndexOperands().get(0));
+            code.op(CodeBuilder.IALOAD, -1);
+            return;
+        }
+
+        pushElementDescriptor(descriptor);
+    }
+
+    private void pushElementDescriptor(Descriptor descriptor) {
+        ElementType type = descriptor.getVarType().getTypeOfElement();
+        if(type == ElementType.THIS) {
+            code.local(CodeBuilder.ALOAD, 0);
+            return;
+        }
+
+        boolean isInt = type == ElementType.INT32 || type == ElementType.BOOLEAN;
+        code.local(isInt ? CodeBuilder.ILOAD : CodeBuilder.ALOAD, descriptor.getVirtualReg());
+    }
+
+    private void pushLiteral(LiteralElement element) {
+        switch (element.getType().getTypeOfElement()){
+            case INT32: case BOOLEAN:
+                code.pushInt(Integer.parseInt(element.getLiteral()), constantPool);
+                break;
+            case STRING:
+                code.ldc(constantPool.string(element.getLiteral().replace("\"", "")));
+                break;
+            default:
+                throw new NotImplementedException("Literal of type " + element.getType().getTypeOfElement());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package pt.up.fe.comp.backend;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bytecode of a single method being written by {@link ClassFileWriter}. Resolves branch labels once the method is
+ * complete and keeps track of the operand stack depth, so the exact max stack is known at the end.
+ */
+class CodeBuilder {
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC = 0x12;
+    static final int LDC_W = 0x13;
+    static final int ILOAD = 0x15;
+    static final int ALOAD = 0x19;
+    static final int IALOAD = 0x2e;
+    static final int ISTORE = 0x36;
+    static final int ASTORE = 0x3a;
+    static final int IASTORE = 0x4f;
+    static final int POP = 0x57;
+    static final int DUP = 0x59;
+    static final int IADD = 0x60;
+    static final int ISUB = 0x64;
+    static final int IMUL = 0x68;
+    static final int IDIV = 0x6c;
+    static final int IAND = 0x7e;
+    static final int IOR = 0x80;
+    static final int IINC = 0x84;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFGT = 0x9d;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int IF_ICMPLT = 0xa1;
+    static final int IF_ICMPGE = 0xa2;
+    static final int GOTO = 0xa7;
+    static final int IRETURN = 0xac;
+    static final int ARETURN = 0xb0;
+    static final int RETURN = 0xb1;
+    static final int GETFIELD = 0xb4;
+    static final int PUTFIELD = 0xb5;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int NEW = 0xbb;
+    static final int NEWARRAY = 0xbc;
+    static final int ARRAYLENGTH = 0xbe;
+    static final int WIDE = 0xc4;
+
+    static final int T_INT = 10;
+
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final Map<String, Integer> labelOffsets = new HashMap<>();
+    private final Map<String, Integer> labelStacks = new HashMap<>();
+    private final List<Jump> jumps = new ArrayList<>();
+
+    private int stack = 0;
+    private int maxStack = 0;
+    private boolean reachable = true;
+
+    private static class Jump {
+        final int opcodeOffset;
+        final String label;
+
+        Jump(int opcodeOffset, String label) {
+            this.opcodeOffset = opcodeOffset;
+            this.label = label;
+        }
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    /**
+     * Emits an instruction without operands.
+     *
+     * @param stackDelta the change of the operand stack depth caused by the instruction
+     */
+    void op(int opcode, int stackDelta) {
+        code.write(opcode);
+        adjustStack(stackDelta);
+
+        if (opcode == GOTO || (opcode >= IRETURN && opcode <= RETURN)) {
+            reachable = false;
+        }
+    }
+
+    void opByte(int opcode, int operand, int stackDelta) {
+        code.write(opcode);
+        code.write(operand);
+        adjustStack(stackDelta);
+    }
+
+    void opShort(int opcode, int operand, int stackDelta) {
+        code.write(opcode);
+        writeShort(operand);
+        adjustStack(stackDelta);
+    }
+
+    /**
+     * Emits a load or store of a local variable, using the short form (e.g. iload_1) when there is one.
+     */
+    void local(int opcode, int register) {
+        int stackDelta = (opcode == ILOAD || opcode == ALOAD) ? 1 : -1;
+
+        if (register <= 3) {
+            // iload_0 is 0x1a, aload_0 is 0x2a, istore_0 is 0x3b, astore_0 is 0x4b
+            int shortForm = (opcode == ILOAD || opcode == ALOAD)
+                    ? 0x1a + (opcode - ILOAD) * 4 + register
+                    : 0x3b + (opcode - ISTORE) * 4 + register;
+            op(shortForm, stackDelta);
+        } else if (register <= 0xFF) {
+            opByte(opcode, register, stackDelta);
+        } else {
+            code.write(WIDE);
+            opShort(opcode, register, stackDelta);
+        }
+    }
+
+    void iinc(int register, int value) {
+        if (register <= 0xFF && value >= -128 && value <= 127) {
+            code.write(IINC);
+            code.write(register);
+            code.write(value);
+        } else {
+            code.write(WIDE);
+            code.write(IINC);
+            writeShort(register);
+            writeShort(value);
+        }
+    }
+
+    /**
+     * Pushes an int constant with the smallest instruction available. Larger constants go through the constant pool.
+     */
+    void pushInt(int value, ConstantPool constantPool) {
+        if (value >= -1 && value <= 5) {
+            op(ICONST_0 + value, 1);
+        } else if (value >= -128 && value <= 127) {
+            opByte(BIPUSH, value & 0xFF, 1);
+        } else if (value >= -32768 && value <= 32767) {
+            opShort(SIPUSH, value & 0xFFFF, 1);
+        } else {
+            ldc(constantPool.integer(value));
+        }
+    }
+
+    void ldc(int constantIndex) {
+        if (constantIndex <= 0xFF) {
+            opByte(LDC, constantIndex, 1);
+        } else {
+            opShort(LDC_W, constantIndex, 1);
+        }
+    }
+
+    /**
+     * Emits a goto or conditional branch to the given label, which may be placed before or after this point.
+     */
+    void jump(int opcode, String label, int stackDelta) {
+        int opcodeOffset = code.size();
+        code.write(opcode);
+        writeShort(0);
+        adjustStack(stackDelta);
+
+        jumps.add(new Jump(opcodeOffset, label));
+        labelStacks.putIfAbsent(label, stack);
+
+        if (opcode == GOTO) {
+            reachable = false;
+        }
+    }
+
+    void label(String label) {
+        if (labelOffsets.putIfAbsent(label, code.size()) != null) {
+            throw new RuntimeException("Label " + label + " defined more than once");
+        }
+
+        // Code after a goto or return is only reached through jumps to this label
+        if (!reachable) {
+            stack = labelStacks.getOrDefault(label, 0);
+            reachable = true;
+        } else {
+            labelStacks.putIfAbsent(label, stack);
+        }
+    }
+
+    /**
+     * @return the bytecode, with every branch offset resolved
+     */
+    byte[] toByteArray() {
+        byte[] bytes = code.toByteArray();
+
+        for (Jump jump : jumps) {
+            Integer target = labelOffsets.get(jump.label);
+            if (target == null) {
+                throw new RuntimeException("Jump to undefined label " + jump.label);
+            }
+
+            int offset = target - jump.opcodeOffset;
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new RuntimeException("Branch to " + jump.label + " is too far for a 16-bit offset");
+            }
+
+            bytes[jump.opcodeOffset + 1] = (byte) (offset >> 8);
+            bytes[jump.opcodeOffset + 2] = (byte) offset;
+        }
+
+        return bytes;
+    }
+
+    private void adjustStack(int stackDelta) {
+        stack += stackDelta;
+        if (stack > maxStack) maxStack = stack;
+    }
+
+    private void writeShort(int value) {
+        code.write(value >> 8);
+        code.write(value);
+    }
+}
@@ -0,0 +1,110 @@
+package pt.up.fe.comp.backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Constant pool of a class file being written by {@link ClassFileWriter}. Equal entries are only added once.
+ */
+class ConstantPool {
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream entries = new DataOutputStream(bytes);
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private int count = 1;
+
+    int utf8(String value) {
+        return add("U" + value, () -> {
+            entries.writeByte(UTF8);
+            entries.writeUTF(value);
+        });
+    }
+
+    int integer(int value) {
+        return add("I" + value, () -> {
+            entries.writeByte(INTEGER);
+            entries.writeInt(value);
+        });
+    }
+
+    int string(String value) {
+        int utf8 = utf8(value);
+        return add("S" + value, () -> {
+            entries.writeByte(STRING);
+            entries.writeShort(utf8);
+        });
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return add("C" + internalName, () -> {
+            entries.writeByte(CLASS);
+            entries.writeShort(name);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(FIELD_REF, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(METHOD_REF, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int classIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        return add(tag + owner + "." + name + ":" + descriptor, () -> {
+            entries.writeByte(tag);
+            entries.writeShort(classIndex);
+            entries.writeShort(nameAndType);
+        });
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        return add("N" + name + ":" + descriptor, () -> {
+            entries.writeByte(NAME_AND_TYPE);
+            entries.writeShort(nameIndex);
+            entries.writeShort(descriptorIndex);
+        });
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeShort(count);
+        bytes.writeTo(out);
+    }
+
+    private interface EntryWriter {
+        void write() throws IOException;
+    }
+
+    private int add(String key, EntryWriter writer) {
+        Integer index = indexes.get(key);
+        if (index != null) return index;
+
+        try {
+            writer.write();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write constant pool entry " + key, e);
+        }
+
+        if (count > 0xFFFF) {
+            throw new RuntimeException("Too many constants in class file");
+        }
+
+        indexes.put(key, count);
+        return count++;
+    }
+}
@@ -1,10 +1,13 @@
 package pt.up.fe.comp.backend;
 
 import org.specs.comp.ollir.*;
+import pt.up.fe.comp.ParallelUtils;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -16,17 +19,24 @@ public class Jasmin {
     private StringBuilder jasminCodeBuilder;
     private String superClassName;
 
+    // State of the method being emitted; each method is emitted by its own instance, so labels are numbered per method
     int operatorLabel;
     int comparisonLabel;
-    int stackLimit;
-    int currentStackValue;
+
+    public Jasmin() {
+    }
+
+    /**
+     * Creates an emitter for one method of the class whose declaration the given instance has built.
+     */
+    private Jasmin(Jasmin classEmitter) {
+        this.ollirClass = classEmitter.ollirClass;
+        this.fullyQualifiedNames = classEmitter.fullyQualifiedNames;
+        this.superClassName = classEmitter.superClassName;
+    }
 
     public String build(ClassUnit ollirClass) throws OllirErrorException {
         this.ollirClass = ollirClass;
-        this.operatorLabel = 0;
-        this.comparisonLabel = 0;
-        this.stackLimit = 0;
-        this.currentStackValue = 0;
 
         this.ollirClass.checkMethodLabels();
         this.ollirClass.buildCFGs();
@@ -37,8 +47,19 @@ public class Jasmin {
 
         buildClassDeclaration();
 
-        for(Method method : this.ollirClass.getMethods())
-            buildClassMethod(method);
+        // Methods share no state, so they are emitted concurrently and appended in order
+        List<String> methodsCode = ParallelUtils.mapInOrder(this.ollirClass.getMethods(),
+                method -> new Jasmin(this).buildMethod(method));
+
+        for(String methodCode : methodsCode)
+            jasminCodeBuilder.append(methodCode);
+
+        return jasminCodeBuilder.toString();
+    }
+
+    private String buildMethod(Method method) {
+        this.jasminCodeBuilder = new StringBuilder();
+        buildClassMethod(method);
 
         return jasminCodeBuilder.toString();
     }
@@ -142,9 +163,6 @@ public class Jasmin {
     }
 
     private void buildClassMethod(Method method) {
-        this.stackLimit = 0;
-        this.currentStackValue = 0;
-
         this.variableTable = method.getVarTable();
         // Method Signature Definition
         this.jasminCodeBuilder.append(".method ")
@@ -164,10 +182,10 @@ public class Jasmin {
 
 
         StringBuilder instructions = new StringBuilder();
-        HashMap<String, Instruction> labels = method.getLabels();
+        Map<Instruction, List<String>> labels = getLabelsByInstruction(method);
         for(Instruction instruction : method.getInstructions()) {
-            for(String label : labels.keySet())
-                if(labels.get(label) == instruction) instructions.append(label).append(":\n");
+            for(String label : labels.getOrDefault(instruction, List.of()))
+                instructions.append(label).append(":\n");
 
             instructions.append(buildMethodInstructions(instruction));
 
@@ -178,7 +196,9 @@ public class Jasmin {
 
         // Limit Declarations
         if(!method.isConstructMethod()) {
-            this.jasminCodeBuilder.append("\t.limit stack ").append(this.stackLimit).append("\n");
+            this.jasminCodeBuilder.append("\t.limit stack ")
+                    .append(JasminStackAnalyser.getMaxStack(instructions.toString()))
+                    .append("\n");
 
             ArrayList<Integer> locals = new ArrayList<>();
             for (Descriptor d : variableTable.values())
@@ -200,6 +220,20 @@ public class Jasmin {
 
     }
 
+    /**
+     * Inverts the labels of the method, so that the labels of each instruction are found without going through all of
+     * them. Labels of the same instruction keep the order of {@link Method#getLabels()}. {@link ClassFileWriter} places
+     * its labels the same way.
+     */
+    static Map<Instruction, List<String>> getLabelsByInstruction(Method method) {
+        Map<Instruction, List<String>> labels = new IdentityHashMap<>();
+
+        for(Map.Entry<String, Instruction> label : method.getLabels().entrySet())
+            labels.computeIfAbsent(label.getValue(), instruction -> new ArrayList<>()).add(label.getKey());
+
+        return labels;
+    }
+
     private String buildMethodInstructions(Instruction instruction){
 
         switch(instruction.getInstType()){
@@ -235,9 +269,6 @@ public class Jasmin {
 
         switch (instruction.getOperation().getOpType()){
             case NOT: case NOTB:
-                updateStackLimit(1);
-                currentStackValue = 0;
-
                 labelTrue = "True_" + this.operatorLabel;
                 labelContinue = "Continue_" + this.operatorLabel++;
 
@@ -267,25 +298,16 @@ public class Jasmin {
 
         switch(instruction.getOperation().getOpType()){
             case ANDB:
-                updateStackLimit(1);
-                currentStackValue = 0;
-
                 binaryOpInstruction.append(pushElement(leftOperand))
                                    .append(pushElement(rightOperand))
                                    .append("\n\tiand\n");
                 break;
             case ORB:
-                updateStackLimit(1);
-                currentStackValue = 0;
-
                 binaryOpInstruction.append(pushElement(leftOperand))
                                    .append(pushElement(rightOperand))
                                    .append("\n\tior\n");
                 break;
             case NOT: case NOTB:
-                updateStackLimit(1);
-                currentStackValue = 0;
-
                 labelTrue = "True_" + this.operatorLabel;
                 labelContinue = "Continue_" + this.operatorLabel++;
 
@@ -309,8 +331,6 @@ public class Jasmin {
                                    .append(labelTrue).append(":\n")
                                    .append("\ticonst_1\n")
                                    .append(labelContinue).append(":\n");
-
-                currentStackValue = 1;
                 break;
             case LTH:
                 labelTrue = "True_" + this.operatorLabel;
@@ -324,9 +344,6 @@ public class Jasmin {
                         .append(labelTrue).append(":\n")
                         .append("\ticonst_1\n")
                         .append(labelContinue).append(":\n");
-
-                currentStackValue = 1;
-
                 break;
             case GTE:
                 labelTrue = "True_" + this.operatorLabel;
@@ -340,40 +357,26 @@ public class Jasmin {
                         .append(labelTrue).append(":\n")
                         .append("\ticonst_1\n")
                         .append(labelContinue).append(":\n");
-
-                currentStackValue = 1;
                 break;
             case ADD:
                 binaryOpInstruction.append(pushElement(leftOperand))
                         .append(pushElement(rightOperand))
                         .append("\tiadd\n");
-
-                updateStackLimit(currentStackValue);
-                currentStackValue -= 1;
                 break;
             case MUL:
                 binaryOpInstruction.append(pushElement(leftOperand))
                         .append(pushElement(rightOperand))
                         .append("\timul\n");
-
-                updateStackLimit(currentStackValue);
-                currentStackValue -= 1;
                 break;
             case DIV:
                 binaryOpInstruction.append(pushElement(leftOperand))
                         .append(pushElement(rightOperand))
                         .append("\tidiv\n");
-
-                updateStackLimit(currentStackValue);
-                currentStackValue -= 1;
                 break;
             case SUB:
                 binaryOpInstruction.append(pushElement(leftOperand))
                         .append(pushElement(rightOperand))
                         .append("\tisub\n");
-
-                updateStackLimit(currentStackValue);
-                currentStackValue -= 1;
                 break;
             default:
                 throw new NotImplementedException(instruction.getOperation().getOpType());
@@ -394,9 +397,6 @@ public class Jasmin {
 
         returnInstruction.append(pushElement(operand)).append("\t").append(returnType).append("return\n");
 
-        updateStackLimit(currentStackValue);
-        currentStackValue = 0;
-
         return returnInstruction.toString();
 
     }
@@ -417,9 +417,6 @@ public class Jasmin {
                            .append(field.getName()).append(" ")
                            .append(buildTypes(field.getType())).append("\n");
 
-        updateStackLimit(currentStackValue);
-        currentStackValue = 0;
-
         return putFieldInstruction.toString();
     }
 
@@ -439,9 +436,6 @@ public class Jasmin {
                 .append(field.getName()).append(" ")
                 .append(buildTypes(field.getType())).append("\n");
 
-        updateStackLimit(currentStackValue);
-        currentStackValue = 0;
-
         return getFieldInstruction.toString();
     }
 
@@ -449,25 +443,28 @@ public class Jasmin {
     private String buildBranchInstruction(CondBranchInstruction instruction) {
         StringBuilder condBranchInstruction = new StringBuilder();
 
-        boolean isNoper = instruction.getCondition().getInstType().equals(InstructionType.NOPER);
-
+        InstructionType conditionType = instruction.getCondition().getInstType();
         Element leftOperand = instruction.getOperands().get(0);
-        Element rightOperand = isNoper? null : instruction.getOperands().get(1);
 
-        BinaryOpInstruction condition= isNoper? null : ((BinaryOpInstruction) instruction.getCondition());
+        // A single operand jumps when true, and a negated one when false
+        if(conditionType == InstructionType.NOPER || conditionType == InstructionType.UNARYOPER){
+            return condBranchInstruction.append(pushElement(leftOperand))
+                    .append(conditionType == InstructionType.NOPER ? "\tifne " : "\tifeq ")
+                    .append(instruction.getLabel()).append("\n")
+                    .toString();
+        }
 
-        if(isNoper || condition.getOperation().getOpType() == OperationType.ANDB){
-            updateStackLimit(1);
-            currentStackValue = 0;
+        Element rightOperand = instruction.getOperands().get(1);
+        BinaryOpInstruction condition = (BinaryOpInstruction) instruction.getCondition();
 
+        if(condition.getOperation().getOpType() == OperationType.ANDB){
             String labelComparison = "Condition_" + this.comparisonLabel++;
 
             condBranchInstruction.append(pushElement(leftOperand))
+                    .append("\tifeq ").append(labelComparison).append("\n")
+                    .append(pushElement(rightOperand))
                     .append("\tifeq ").append(labelComparison).append("\n");
 
-            if(!isNoper) condBranchInstruction.append(pushElement(rightOperand))
-                            .append("\tifeq ").append(labelComparison).append("\n");
-
             condBranchInstruction.append("\tgoto ").append(instruction.getLabel()).append("\n")
                     .append(labelComparison).append(":\n");
 
@@ -475,9 +472,6 @@ public class Jasmin {
         }
 
         if(condition.getOperation().getOpType() == OperationType.ORB){
-            updateStackLimit(1);
-            currentStackValue = 0;
-
             String labelComparison = "Condition_" + this.comparisonLabel++;
 
             condBranchInstruction.append(pushElement(leftOperand))
@@ -515,9 +509,6 @@ public class Jasmin {
         condBranchInstruction.append(instruction.getLabel())
                 .append("\n");
 
-        updateStackLimit(currentStackValue);
-        currentStackValue = 0;
-
         return condBranchInstruction.toString();
 
     }
@@ -545,29 +536,26 @@ public class Jasmin {
                 Operand rightOperand = binaryOperation.getRightOperand().isLiteral() ?
                         null : (Operand) binaryOperation.getRightOperand();
 
-                String operationSign = binaryOperation.getOperation().getOpType() == OperationType.ADD ? "" : "-";
+                OperationType opType = binaryOperation.getOperation().getOpType();
 
+                // "a = 1 - a" is not an increment, so only additions may have the literal on the left
+                LiteralElement literal = null;
                 if(leftOperand != null && leftOperand.getName().equals(operand.getName()) && rightOperand == null){
-                    String leftValue = operationSign +
-                            ((LiteralElement) binaryOperation.getRightOperand()).getLiteral();
-
-                    if(Integer.parseInt(leftValue) >= -128 && Integer.parseInt(leftValue) <= 127){
-                        assignInstruction.append("\tiinc ")
-                                .append(destVariable.getVirtualReg()).append(" ")
-                                .append(leftValue).append("\n");
-                        return assignInstruction.toString();
-                    }
-
+                    literal = (LiteralElement) binaryOperation.getRightOperand();
+                }
+                else if(opType == OperationType.ADD && rightOperand != null
+                        && rightOperand.getName().equals(operand.getName()) && leftOperand == null){
+                    literal = (LiteralElement) binaryOperation.getLeftOperand();
                 }
 
-                else if(rightOperand != null &&  rightOperand.getName().equals(operand.getName()) && leftOperand == null){
-                    String rightValue = operationSign +
-                            ((LiteralElement) binaryOperation.getLeftOperand()).getLiteral();
+                if(literal != null){
+                    int value = Integer.parseInt(literal.getLiteral());
+                    if(opType == OperationType.SUB) value = -value;
 
-                    if(Integer.parseInt(rightValue) >= -128 && Integer.parseInt(rightValue) <= 127) {
+                    if(value >= -128 && value <= 127){
                         assignInstruction.append("\tiinc ")
                                 .append(destVariable.getVirtualReg()).append(" ")
-                                .append(rightValue).append("\n");
+                                .append(value).append("\n");
                         return assignInstruction.toString();
                     }
                 }
@@ -587,8 +575,6 @@ public class Jasmin {
             if(destType.getTypeOfElement() == ElementType.INT32 || destType.getTypeOfElement() == ElementType.BOOLEAN){
                 assignInstruction.append(buildMethodInstructions(instruction.getRhs()))
                         .append("\tiastore\n");
-                updateStackLimit(currentStackValue + 1); // NOT SURE
-                currentStackValue = 0;
                 return assignInstruction.toString();
             }
         }
@@ -602,8 +588,6 @@ public class Jasmin {
                 .append(storeType).append("store").append(hasSM).append(destVariable.getVirtualReg())
                 .append("\n");
 
-        updateStackLimit(currentStackValue);
-        currentStackValue = 0;
         return assignInstruction.toString();
     }
 
@@ -617,9 +601,6 @@ public class Jasmin {
                 for(Element operand: instruction.getListOfOperands())
                     callInstruction.append(pushElement(operand));
 
-                updateStackLimit(currentStackValue + 1);
-                currentStackValue =  (instruction.getReturnType().getTypeOfElement() == ElementType.VOID) ? 0 : 1;
-
                 callInstruction.append("\tinvokevirtual ");
 
                 String virtualClass = ((ClassType) instruction.getFirstArg().getType()).getName();
@@ -641,7 +622,6 @@ public class Jasmin {
                 break;
             case invokespecial:
                 callInstruction.append(pushElement(instruction.getFirstArg()));
-                updateStackLimit(currentStackValue);
 
                 String initClass = ((ClassType) instruction.getFirstArg().getType()).getName();
                 String initClassName = instruction.getFirstArg().getType().getTypeOfElement() == ElementType.THIS
@@ -654,14 +634,11 @@ public class Jasmin {
                 callInstruction.append(")")
                         .append(buildTypes(instruction.getReturnType()))
                         .append("\n");
-
-                currentStackValue = 0;
                 break;
             case invokestatic:
                 for(Element operand: instruction.getListOfOperands())
                     callInstruction.append(pushElement(operand));
 
-                updateStackLimit(currentStackValue);
                 callInstruction.append("\tinvokestatic ");
 
                 String staticClass = ((Operand) instruction.getFirstArg()).getName();
@@ -679,8 +656,6 @@ public class Jasmin {
                 callInstruction.append(")")
                         .append(buildTypes(instruction.getReturnType()))
                         .append("\n");
-
-                currentStackValue =  (instruction.getReturnType().getTypeOfElement() == ElementType.VOID) ? 0 : 1;
                 break;
             case NEW:
                 if(instruction.getReturnType().getTypeOfElement() == ElementType.OBJECTREF){
@@ -707,9 +682,6 @@ public class Jasmin {
                     throw new NotImplementedException("New with type "
                             + instruction.getFirstArg().getType().getTypeOfElement());
                 // Other new types are not supported
-
-                updateStackLimit(currentStackValue);
-                currentStackValue = 1;
                 break;
             case arraylength:
                 callInstruction.append(pushElement(instruction.getFirstArg()))
@@ -755,8 +727,6 @@ public class Jasmin {
     }
 
     private String pushElementDescriptor(Descriptor descriptor) {
-        currentStackValue += 1;
-
         ElementType type = descriptor.getVarType().getTypeOfElement();
         if(type == ElementType.THIS)
             return "\taload_0\n";
@@ -768,8 +738,6 @@ public class Jasmin {
     }
 
     private String pushLiteral(LiteralElement element) {
-        currentStackValue += 1;
-
         StringBuilder literalElement = new StringBuilder("\t");
 
         switch (element.getType().getTypeOfElement()){
@@ -792,9 +760,4 @@ public class Jasmin {
         }
         return literalElement.toString();
     }
-
-    private void updateStackLimit(int stackValue){
-        if(stackValue > this.stackLimit)
-            this.stackLimit = stackValue;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package pt.up.fe.comp.backend;
+
+import pt.up.fe.specs.util.exceptions.NotImplementedException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the maximum operand stack depth of the Jasmin code of a method, by simulating the stack over the emitted
+ * instructions. Branches are followed to their labels, and each instruction is analysed once, with the depth of the
+ * first path that reaches it, as verifiable code has the same depth on every path.
+ */
+class JasminStackAnalyser {
+    private final List<String> opcodes = new ArrayList<>();
+    private final List<String> operands = new ArrayList<>();
+    private final Map<String, Integer> labels = new HashMap<>();
+
+    private JasminStackAnalyser(String methodCode) {
+        for (String line : methodCode.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            if (line.endsWith(":")) {
+                labels.put(line.substring(0, line.length() - 1), opcodes.size());
+                continue;
+            }
+
+            int space = line.indexOf(' ');
+            opcodes.add(space < 0 ? line : line.substring(0, space));
+            operands.add(space < 0 ? "" : line.substring(space + 1).trim());
+        }
+    }
+
+    /**
+     * @param methodCode the instructions and labels of a method, one per line, without directives
+     * @return the value for the .limit stack directive of the method
+     */
+    static int getMaxStack(String methodCode) {
+        return new JasminStackAnalyser(methodCode).analyse();
+    }
+
+    private int analyse() {
+        int[] depths = new int[opcodes.size()];
+        Arrays.fill(depths, -1);
+
+        int maxStack = 0;
+        Deque<Integer> worklist = new ArrayDeque<>();
+        reach(0, 0, depths, worklist);
+
+        while (!worklist.isEmpty()) {
+            int index = worklist.pop();
+            String opcode = opcodes.get(index);
+
+            int depth = depths[index] + getStackDelta(opcode, operands.get(index));
+            // Instructions pop their operands before pushing their result, so the depth peaks before or after them
+            maxStack = Math.max(maxStack, depth);
+
+            if (isJump(opcode)) {
+                reach(getTarget(index), depth, depths, worklist);
+            }
+
+            if (!endsFlow(opcode)) {
+                reach(index + 1, depth, depths, worklist);
+            }
+        }
+
+        return maxStack;
+    }
+
+    private void reach(int index, int depth, int[] depths, Deque<Integer> worklist) {
+        if (index >= depths.length || depths[index] >= 0) return;
+
+        depths[index] = depth;
+        worklist.push(index);
+    }
+
+    private int getTarget(int index) {
+        Integer target = labels.get(operands.get(index));
+        if (target == null) {
+            throw new RuntimeException("Jump to undefined label '" + operands.get(index) + "'");
+        }
+
+        return target;
+    }
+
+    private static boolean isJump(String opcode) {
+        return opcode.startsWith("if") || opcode.equals("goto");
+    }
+
+    private static boolean endsFlow(String opcode) {
+        return opcode.equals("goto") || opcode.endsWith("return") || opcode.equals("athrow");
+    }
+
+    private static int getStackDelta(String opcode, String operand) {
+        // Loads and stores, in both the long and the short forms
+        if (opcode.startsWith("iload") || opcode.startsWith("aload")) return 1;
+        if (opcode.startsWith("istore") || opcode.startsWith("astore")) return -1;
+        if (opcode.startsWith("iconst")) return 1;
+
+        switch (opcode) {
+            case "bipush": case "sipush": case "ldc": case "new": case "dup": case "getstatic":
+                return 1;
+            case "iinc": case "ineg": case "arraylength": case "newarray": case "anewarray": case "getfield":
+            case "checkcast": case "instanceof": case "goto": case "return":
+                return 0;
+            case "iadd": case "isub": case "imul": case "idiv": case "irem": case "iand": case "ior": case "ixor":
+            case "ishl": case "ishr": case "iushr": case "iaload": case "aaload": case "pop": case "putstatic":
+            case "ifeq": case "ifne": case "iflt": case "ifge": case "ifgt": case "ifle": case "ifnull":
+            case "ifnonnull": case "ireturn": case "areturn": case "athrow":
+                return -1;
+            case "if_icmpeq": case "if_icmpne": case "if_icmplt": case "if_icmpge": case "if_icmpgt":
+            case "if_icmple": case "if_acmpeq": case "if_acmpne": case "putfield":
+                return -2;
+            case "iastore": case "aastore":
+                return -3;
+            case "invokestatic":
+                return getReturnSize(operand) - getArgumentsSize(operand);
+            case "invokevirtual": case "invokespecial": case "invokeinterface":
+                return getReturnSize(operand) - getArgumentsSize(operand) - 1;
+            default:
+                throw new NotImplementedException("Stack effect of Jasmin instruction " + opcode);
+        }
+    }
+
+    private static int getArgumentsSize(String methodReference) {
+        int size = 0;
+        int i = methodReference.indexOf('(') + 1;
+
+        while (methodReference.charAt(i) != ')') {
+            char type = methodReference.charAt(i);
+
+            // Arrays are references, whatever the element type
+            boolean isArray = false;
+            while (type == '[') {
+                isArray = true;
+                type = methodReference.charAt(++i);
+            }
+
+            if (type == 'L') {
+                i = methodReference.indexOf(';', i);
+            }
+
+            size += !isArray && (type == 'J' || type == 'D') ? 2 : 1;
+            i++;
+        }
+
+        return size;
+    }
+
+    private static int getReturnSize(String methodReference) {
+        char type = methodReference.charAt(methodReference.indexOf(')') + 1);
+
+        switch (type) {
+            case 'V':
+                return 0;
+            case 'J': case 'D':
+                return 2;
+            default:
+                return 1;
+        }
+    }
+}
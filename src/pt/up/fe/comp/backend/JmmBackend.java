@@ -19,6 +19,11 @@ public class JmmBackend implements JasminBackend {
     public JasminResult toJasmin(OllirResult ollirResult) {
         ClassUnit ollirClass = ollirResult.getOllirClass();
         try {
+            var config = ollirResult.getConfig();
+            if (config != null && "classfile".equals(config.get("backend"))) {
+                byte[] classFile = new ClassFileWriter().build(ollirClass);
+                return JasminResult.fromClassFile(ollirResult, classFile, new ArrayList<>());
+            }
 
             Jasmin jasmin = new Jasmin();
             String jasminCode = jasmin.build(ollirClass);
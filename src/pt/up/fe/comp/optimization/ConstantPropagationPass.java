@@ -0,0 +1,132 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the reads of a local with a literal when every definition of the local that reaches the read assigns that
+ * same literal. Reaching definitions are a forward {@link DataflowSolver} problem, with one fact per assignment to a
+ * local. Unlike {@link ConstantPropagator}, which runs on the AST, this also propagates into the temporaries of the
+ * generated code. Array indices are left as variables. Operations whose operands are all literals are then folded,
+ * so their results propagate in the next round.
+ */
+public class ConstantPropagationPass implements OllirPass {
+    private static final int ENTRY = -1;
+
+    @Override
+    public String getName() {
+        return "constprop";
+    }
+
+    @Override
+    public boolean run(Method method) {
+        ControlFlowGraph cfg = new ControlFlowGraph(method);
+        List<Instruction> instructions = cfg.getInstructions();
+        List<String> variables = OllirInstructionUtils.getLocalVariables(method);
+
+        // One fact per assignment to a local, and one per local for the value it has at the entry, so a read that may
+        // see an unassigned local is not replaced
+        List<Integer> definitions = new ArrayList<>();
+        Map<String, BitSet> definitionsByVariable = new HashMap<>();
+        BitSet entry = new BitSet();
+        for (String variable : variables) {
+            BitSet variableDefinitions = new BitSet();
+            variableDefinitions.set(definitions.size());
+            entry.set(definitions.size());
+
+            definitionsByVariable.put(variable, variableDefinitions);
+            definitions.add(ENTRY);
+        }
+
+        for (int i = 0; i < instructions.size(); i++) {
+            BitSet variableDefinitions = definitionsByVariable.get(
+                    OllirInstructionUtils.getAssignedVariable(instructions.get(i)));
+
+            if (variableDefinitions != null) {
+                variableDefinitions.set(definitions.size());
+                definitions.add(i);
+            }
+        }
+
+        DataflowSolver solver = new DataflowSolver(cfg, DataflowSolver.Direction.FORWARD, DataflowSolver.Meet.UNION,
+                definitions.size());
+        for (int fact = 0; fact < definitions.size(); fact++) {
+            int instruction = definitions.get(fact);
+            if (instruction == ENTRY) continue;
+
+            String variable = OllirInstructionUtils.getAssignedVariable(instructions.get(instruction));
+            solver.getGen(instruction).set(fact);
+            solver.getKill(instruction).or(definitionsByVariable.get(variable));
+        }
+        solver.setBoundary(entry);
+        solver.solve();
+
+        boolean changed = false;
+        for (int i = 0; i < instructions.size(); i++) {
+            BitSet reaching = solver.getBefore(i);
+
+            changed |= OllirInstructionUtils.replaceUses(instructions.get(i), element -> {
+                BitSet variableDefinitions = definitionsByVariable.get(OllirInstructionUtils.getVariableName(element));
+                if (variableDefinitions == null) return element;
+
+                BitSet reachingDefinitions = (BitSet) reaching.clone();
+                reachingDefinitions.and(variableDefinitions);
+
+                LiteralElement constant = getConstant(reachingDefinitions, definitions, instructions);
+                return constant != null ? new LiteralElement(constant.getLiteral(), element.getType()) : element;
+            }, false);
+
+            changed |= fold(method, i);
+        }
+
+        return changed;
+    }
+
+    /**
+     * Replaces an assignment of an operation on literals with an assignment of its value.
+     */
+    private static boolean fold(Method method, int index) {
+        Instruction instruction = method.getInstructions().get(index);
+        if (instruction.getInstType() != InstructionType.ASSIGN) return false;
+
+        AssignInstruction assign = (AssignInstruction) instruction;
+        InstructionType rhsType = assign.getRhs().getInstType();
+        if (rhsType != InstructionType.BINARYOPER && rhsType != InstructionType.UNARYOPER) return false;
+
+        Integer value = OllirInstructionUtils.evaluate(assign.getRhs());
+        if (value == null) return false;
+
+        LiteralElement literal = new LiteralElement(String.valueOf(value), assign.getTypeOfAssign());
+        OllirInstructionUtils.replaceInstruction(method, index,
+                new AssignInstruction(assign.getDest(), assign.getTypeOfAssign(), new SingleOpInstruction(literal)));
+        return true;
+    }
+
+    /**
+     * @return the literal assigned by all the given definitions, or null if they assign different values or there are
+     * none, as in unreachable code
+     */
+    private static LiteralElement getConstant(BitSet reachingDefinitions, List<Integer> definitions,
+                                              List<Instruction> instructions) {
+        LiteralElement constant = null;
+
+        for (int fact = reachingDefinitions.nextSetBit(0); fact >= 0; fact = reachingDefinitions.nextSetBit(fact + 1)) {
+            int instruction = definitions.get(fact);
+            if (instruction == ENTRY) return null;
+
+            Element value = OllirInstructionUtils.getCopiedElement(instructions.get(instruction));
+            if (value == null || !value.isLiteral()) return null;
+
+            LiteralElement literal = (LiteralElement) value;
+            if (constant != null && !constant.getLiteral().equals(literal.getLiteral())) return null;
+            constant = literal;
+        }
+
+        return constant;
+    }
+}
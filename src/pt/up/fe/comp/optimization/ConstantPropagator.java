@@ -0,0 +1,236 @@
+package pt.up.fe.comp.optimization;
+
+import pt.up.fe.comp.analysis.JmmSymbolTable;
+import pt.up.fe.comp.analysis.JmmSymbolTableBuilder;
+import pt.up.fe.comp.analysis.MethodSignature;
+import pt.up.fe.comp.jmm.ast.AJmmVisitor;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Propagates the constants assigned to the locals and parameters of a method into the expressions that read them,
+ * and folds the operations on literals, before the OLLIR code is generated. The constants known where the visit is
+ * are passed down the visit, and each visit returns the node that replaces the visited one.
+ */
+public class ConstantPropagator extends AJmmVisitor<Map<String, JmmNode>, JmmNode> {
+    private final JmmSymbolTable symbolTable;
+    private final MethodSignature methodSignature;
+
+    private ConstantPropagator(JmmSymbolTable symbolTable, MethodSignature methodSignature) {
+        this.symbolTable = symbolTable;
+        this.methodSignature = methodSignature;
+
+        addVisit("VarDeclaration", this::skipVisit);
+        addVisit("IDAssignment", this::idAssignmentVisit);
+        addVisit("IfStatement", this::ifStatementVisit);
+        addVisit("WhileStatement", this::whileStatementVisit);
+        addVisit("BinOp", this::binOpVisit);
+        addVisit("UnaryOp", this::unaryOpVisit);
+        addVisit("ParenthesisExpression", this::parenthesisVisit);
+        addVisit("CallExpression", this::callExpressionVisit);
+        addVisit("_New", this::newVisit);
+        addVisit("ID", this::idVisit);
+        setDefaultVisit(this::defaultVisit);
+    }
+
+    /**
+     * Propagates and folds the constants in the body and return expression of a MainMethod or InstanceMethod node.
+     */
+    public static void propagate(JmmNode methodNode, JmmSymbolTable symbolTable) {
+        MethodSignature methodSignature = methodNode.getKind().equals("MainMethod")
+                ? MethodSignature.MAIN
+                : JmmSymbolTableBuilder.generateMethod(methodNode).getSignature();
+
+        ConstantPropagator propagator = new ConstantPropagator(symbolTable, methodSignature);
+        Map<String, JmmNode> constants = new HashMap<>();
+
+        for (JmmNode child : methodNode.getChildren()) {
+            if (child.getKind().equals("MethodBody") || child.getKind().equals("ReturnExpression")) {
+                propagator.visit(child, constants);
+            }
+        }
+    }
+
+    private JmmNode defaultVisit(JmmNode node, Map<String, JmmNode> constants) {
+        for (int i = 0; i < node.getNumChildren(); i++) {
+            JmmNode child = node.getJmmChild(i);
+            JmmNode result = visit(child, constants);
+
+            if (result != child) node.setChild(result, i);
+        }
+
+        return node;
+    }
+
+    private JmmNode skipVisit(JmmNode node, Map<String, JmmNode> constants) {
+        return node;
+    }
+
+    private JmmNode idAssignmentVisit(JmmNode assignmentNode, Map<String, JmmNode> constants) {
+        // The assigned ID is not visited, as it is not read
+        JmmNode value = visit(assignmentNode.getJmmChild(1), constants);
+        if (value != assignmentNode.getJmmChild(1)) assignmentNode.setChild(value, 1);
+
+        String name = assignmentNode.getJmmChild(0).get("name");
+        if (!isVariable(name)) return assignmentNode;
+
+        if (isConstant(value)) {
+            constants.put(name, value);
+        } else {
+            constants.remove(name);
+        }
+
+        return assignmentNode;
+    }
+
+    private JmmNode ifStatementVisit(JmmNode ifNode, Map<String, JmmNode> constants) {
+        visit(ifNode.getJmmChild(0), constants);
+
+        Map<String, JmmNode> elseConstants = new HashMap<>(constants);
+        visit(ifNode.getJmmChild(1), constants);
+        visit(ifNode.getJmmChild(2), elseConstants);
+
+        // Only the constants with the same value after both branches are known after the if
+        constants.entrySet().removeIf(entry -> !isSameConstant(entry.getValue(), elseConstants.get(entry.getKey())));
+
+        return ifNode;
+    }
+
+    private JmmNode whileStatementVisit(JmmNode whileNode, Map<String, JmmNode> constants) {
+        // Variables assigned in the body may change on every iteration, so they are not constant anywhere in the loop
+        // nor after it. The others keep their value, whether the body runs or not.
+        Set<String> assigned = new HashSet<>();
+        addAssignedVariables(whileNode.getJmmChild(1), assigned);
+        constants.keySet().removeAll(assigned);
+
+        visit(whileNode.getJmmChild(0), constants);
+        visit(whileNode.getJmmChild(1), new HashMap<>(constants));
+
+        return whileNode;
+    }
+
+    private JmmNode binOpVisit(JmmNode binOpNode, Map<String, JmmNode> constants) {
+        defaultVisit(binOpNode, constants);
+
+        JmmNode left = binOpNode.getJmmChild(0);
+        JmmNode right = binOpNode.getJmmChild(1);
+        if (!isConstant(left) || !isConstant(right)) return binOpNode;
+
+        switch (binOpNode.get("op")) {
+            case "Add":
+                return newLiteral(String.valueOf(getInt(left) + getInt(right)), "int", binOpNode);
+            case "Sub":
+                return newLiteral(String.valueOf(getInt(left) - getInt(right)), "int", binOpNode);
+            case "Mult":
+                return newLiteral(String.valueOf(getInt(left) * getInt(right)), "int", binOpNode);
+            case "Div":
+                // Division by zero is left to fail at run time
+                if (getInt(right) == 0) return binOpNode;
+                return newLiteral(String.valueOf(getInt(left) / getInt(right)), "int", binOpNode);
+            case "Less":
+                return newLiteral(String.valueOf(getInt(left) < getInt(right)), "boolean", binOpNode);
+            case "And":
+                return newLiteral(String.valueOf(getBoolean(left) && getBoolean(right)), "boolean", binOpNode);
+            default:
+                return binOpNode;
+        }
+    }
+
+    private JmmNode unaryOpVisit(JmmNode unaryNode, Map<String, JmmNode> constants) {
+        defaultVisit(unaryNode, constants);
+
+        JmmNode operand = unaryNode.getJmmChild(0);
+        if (!unaryNode.get("op").equals("Not") || !isConstant(operand)) return unaryNode;
+
+        return newLiteral(String.valueOf(!getBoolean(operand)), "boolean", unaryNode);
+    }
+
+    private JmmNode parenthesisVisit(JmmNode parenthesisNode, Map<String, JmmNode> constants) {
+        defaultVisit(parenthesisNode, constants);
+
+        // A constant needs no parenthesis, nor the temporary that holds its value
+        JmmNode expression = parenthesisNode.getJmmChild(0);
+        if (!isConstant(expression)) return parenthesisNode;
+
+        return newLiteral(expression.get("value"), expression.get("type"), parenthesisNode);
+    }
+
+    private JmmNode callExpressionVisit(JmmNode callNode, Map<String, JmmNode> constants) {
+        // Only the arguments, as the first child is the name of the method
+        visit(callNode.getJmmChild(1), constants);
+        return callNode;
+    }
+
+    private JmmNode newVisit(JmmNode newNode, Map<String, JmmNode> constants) {
+        // The size of a new array is an expression, while the child of a new object is the name of the class
+        if (newNode.get("type").equals("intArray")) {
+            defaultVisit(newNode, constants);
+        }
+
+        return newNode;
+    }
+
+    private JmmNode idVisit(JmmNode idNode, Map<String, JmmNode> constants) {
+        JmmNode constant = constants.get(idNode.get("name"));
+        if (constant == null) return idNode;
+
+        return newLiteral(constant.get("value"), constant.get("type"), idNode);
+    }
+
+    /**
+     * @return whether the name refers to a local or a parameter of the method, rather than to a field
+     */
+    private boolean isVariable(String name) {
+        return symbolTable.getLocalVar(methodSignature, name) != null
+                || symbolTable.getParameter(methodSignature, name) != null;
+    }
+
+    private static void addAssignedVariables(JmmNode node, Set<String> assigned) {
+        if (node.getKind().equals("IDAssignment")) {
+            assigned.add(node.getJmmChild(0).get("name"));
+        }
+
+        for (JmmNode child : node.getChildren()) {
+            addAssignedVariables(child, assigned);
+        }
+    }
+
+    private static boolean isConstant(JmmNode node) {
+        return node.getKind().equals("Literal")
+                && (node.get("type").equals("int") || node.get("type").equals("boolean"));
+    }
+
+    private static boolean isSameConstant(JmmNode constant, JmmNode other) {
+        return other != null && constant.get("value").equals(other.get("value"))
+                && constant.get("type").equals(other.get("type"));
+    }
+
+    private static int getInt(JmmNode literal) {
+        return Integer.parseInt(literal.get("value"));
+    }
+
+    private static boolean getBoolean(JmmNode literal) {
+        return Boolean.parseBoolean(literal.get("value"));
+    }
+
+    /**
+     * Creates a literal at the position of the node it replaces. A new node is always created, as a node that is
+     * already in the tree would be swapped with the replaced one.
+     */
+    private static JmmNode newLiteral(String value, String type, JmmNode position) {
+        JmmNode literal = new JmmNodeImpl("Literal");
+        literal.put("value", value);
+        literal.put("type", type);
+
+        if (position.hasAttribute("line") && position.hasAttribute("column")) {
+            literal.putLineCol(position.getLine(), position.getColumn());
+        }
+
+        return literal;
+    }
+}
@@ -0,0 +1,113 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The successors and predecessors of the instructions of a method, identified by their index in
+ * {@link Method#getInstructions()}. The edges are the same as those of {@link Method#buildCFG()}, but the graph is built
+ * from the current instructions and labels, so it can be rebuilt after a pass changes them, while the library only
+ * ever adds edges to the instructions.
+ */
+public class ControlFlowGraph {
+    private final List<Instruction> instructions;
+    private final List<List<Integer>> successors = new ArrayList<>();
+    private final List<List<Integer>> predecessors = new ArrayList<>();
+    private final BitSet exits = new BitSet();
+
+    public ControlFlowGraph(Method method) {
+        this.instructions = method.getInstructions();
+
+        Map<Instruction, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < instructions.size(); i++) {
+            indices.put(instructions.get(i), i);
+            successors.add(new ArrayList<>());
+            predecessors.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(i);
+
+            switch (instruction.getInstType()) {
+                case GOTO:
+                    addEdge(i, indices.get(method.getLabels().get(((GotoInstruction) instruction).getLabel())));
+                    break;
+                case BRANCH:
+                    addEdge(i, indices.get(method.getLabels().get(((CondBranchInstruction) instruction).getLabel())));
+                    addEdge(i, i + 1);
+                    break;
+                case RETURN:
+                    exits.set(i);
+                    break;
+                default:
+                    addEdge(i, i + 1);
+            }
+        }
+    }
+
+    private void addEdge(int from, Integer to) {
+        // Jumps to a label at the end of the method, and falling off the last instruction, leave the method
+        if (to == null || to >= instructions.size()) {
+            exits.set(from);
+            return;
+        }
+
+        if (successors.get(from).contains(to)) return;
+
+        successors.get(from).add(to);
+        predecessors.get(to).add(from);
+    }
+
+    public List<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    public int size() {
+        return instructions.size();
+    }
+
+    public List<Integer> getSuccessors(int instruction) {
+        return successors.get(instruction);
+    }
+
+    public List<Integer> getPredecessors(int instruction) {
+        return predecessors.get(instruction);
+    }
+
+    /**
+     * @return the instructions that some path from the first instruction reaches
+     */
+    public BitSet getReachable() {
+        BitSet reachable = new BitSet(instructions.size());
+        if (instructions.isEmpty()) return reachable;
+
+        Deque<Integer> worklist = new ArrayDeque<>();
+        worklist.push(0);
+        reachable.set(0);
+
+        while (!worklist.isEmpty()) {
+            for (int successor : successors.get(worklist.pop())) {
+                if (reachable.get(successor)) continue;
+
+                reachable.set(successor);
+                worklist.push(successor);
+            }
+        }
+
+        return reachable;
+    }
+
+    /**
+     * @return whether the method may return after the instruction
+     */
+    public boolean isExit(int instruction) {
+        return exits.get(instruction);
+    }
+}
@@ -0,0 +1,174 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes the copies between variables that the generated code is full of. Reads of the destination of a copy like
+ * "tmp := x" are replaced with x wherever the copy is available, that is, on every path to the read the copy was the
+ * last assignment to both variables. Available copies are a forward {@link DataflowSolver} problem with intersection
+ * as the meet, with one fact per copy. A temporary that is only assigned to be copied right after, as in
+ * "tmp := a + b; x := tmp", is coalesced into the destination of the copy, as in "x := a + b", and a comparison
+ * that is only assigned to be branched on is moved into the branch, as in "if (a < b) goto L". The copies this leaves
+ * dead are removed with {@link DeadCodeEliminationPass#removeDeadStores(Method)}.
+ */
+public class CopyPropagationPass implements OllirPass {
+
+    @Override
+    public String getName() {
+        return "copyprop";
+    }
+
+    @Override
+    public boolean run(Method method) {
+        boolean changed = propagateCopies(method);
+        changed |= coalesceTemporaries(method);
+        changed |= DeadCodeEliminationPass.removeDeadStores(method);
+
+        return changed;
+    }
+
+    private static boolean propagateCopies(Method method) {
+        ControlFlowGraph cfg = new ControlFlowGraph(method);
+        List<Instruction> instructions = cfg.getInstructions();
+        Set<String> locals = new HashSet<>(OllirInstructionUtils.getLocalVariables(method));
+
+        // Copies to locals of another variable, whose reads may be replaced with the variable
+        List<Integer> copies = new ArrayList<>();
+        for (int i = 0; i < instructions.size(); i++) {
+            String dest = OllirInstructionUtils.getAssignedVariable(instructions.get(i));
+            String source = OllirInstructionUtils.getVariableName(
+                    OllirInstructionUtils.getCopiedElement(instructions.get(i)));
+
+            if (locals.contains(dest) && source != null && !source.equals(dest)) copies.add(i);
+        }
+
+        if (copies.isEmpty()) return false;
+
+        // Assigning either variable of a copy makes it unavailable
+        DataflowSolver solver = new DataflowSolver(cfg, DataflowSolver.Direction.FORWARD,
+                DataflowSolver.Meet.INTERSECTION, copies.size());
+        for (int i = 0; i < instructions.size(); i++) {
+            String variable = OllirInstructionUtils.getAssignedVariable(instructions.get(i));
+            if (variable == null) continue;
+
+            for (int fact = 0; fact < copies.size(); fact++) {
+                Instruction copy = instructions.get(copies.get(fact));
+                if (variable.equals(OllirInstructionUtils.getAssignedVariable(copy)) || variable.equals(
+                        OllirInstructionUtils.getVariableName(OllirInstructionUtils.getCopiedElement(copy)))) {
+                    solver.getKill(i).set(fact);
+                }
+            }
+        }
+
+        for (int fact = 0; fact < copies.size(); fact++) {
+            solver.getGen(copies.get(fact)).set(fact);
+        }
+        solver.solve();
+
+        // The sources are read before any replacement, which may change the source of a copy but not the variables
+        // its availability depends on
+        List<String> dests = new ArrayList<>();
+        List<Element> sources = new ArrayList<>();
+        for (int copy : copies) {
+            dests.add(OllirInstructionUtils.getAssignedVariable(instructions.get(copy)));
+            sources.add(OllirInstructionUtils.getCopiedElement(instructions.get(copy)));
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < instructions.size(); i++) {
+            BitSet available = solver.getBefore(i);
+
+            changed |= OllirInstructionUtils.replaceUses(instructions.get(i), element -> {
+                String name = OllirInstructionUtils.getVariableName(element);
+                if (name == null) return element;
+
+                // Only one copy to each variable can be available, as each kills the others
+                for (int fact = available.nextSetBit(0); fact >= 0; fact = available.nextSetBit(fact + 1)) {
+                    if (name.equals(dests.get(fact))) return sources.get(fact);
+                }
+
+                return element;
+            }, true);
+        }
+
+        return changed;
+    }
+
+    /**
+     * Replaces "tmp := value; x := tmp" with "x := value", and "tmp := a < b; if (tmp) goto L" with
+     * "if (a < b) goto L", when tmp is a local that is dead after its read. The read must not have labels, so it is only
+     * reached from the assignment to tmp.
+     */
+    private static boolean coalesceTemporaries(Method method) {
+        LivenessAnalysis liveness = new LivenessAnalysis(method);
+        List<Instruction> instructions = liveness.getInstructions();
+        BitSet removed = new BitSet();
+
+        for (int i = 1; i < instructions.size(); i++) {
+            Instruction read = instructions.get(i);
+            boolean isBranch = read.getInstType() == InstructionType.BRANCH;
+            Element element = isBranch
+                    ? getBranchElement((CondBranchInstruction) read)
+                    : OllirInstructionUtils.getCopiedElement(read);
+
+            int temporary = liveness.getVariableIndex(OllirInstructionUtils.getVariableName(element));
+            if (temporary < 0 || liveness.getLiveOut(i).get(temporary)) continue;
+            if (removed.get(i - 1) || method.getLabels().containsValue(read)) continue;
+
+            Instruction definition = instructions.get(i - 1);
+            String defined = OllirInstructionUtils.getAssignedVariable(definition);
+            if (!liveness.getVariables().get(temporary).equals(defined)) continue;
+
+            Instruction value = ((AssignInstruction) definition).getRhs();
+            if (isBranch) {
+                if (!isBranchCondition(value)) continue;
+
+                OpCondInstruction branch = new OpCondInstruction((OpInstruction) value);
+                branch.setLabel(((CondBranchInstruction) read).getLabel());
+                OllirInstructionUtils.replaceInstruction(method, i - 1, branch);
+            } else {
+                AssignInstruction copy = (AssignInstruction) read;
+                OllirInstructionUtils.replaceInstruction(method, i - 1,
+                        new AssignInstruction(copy.getDest(), copy.getTypeOfAssign(), value));
+            }
+
+            removed.set(i);
+        }
+
+        OllirInstructionUtils.removeInstructions(method, removed);
+        return !removed.isEmpty();
+    }
+
+    /**
+     * @return the element a branch like "if (tmp) goto L" tests, or null for other conditions
+     */
+    private static Element getBranchElement(CondBranchInstruction branch) {
+        Instruction condition = branch.getCondition();
+        return condition.getInstType() == InstructionType.NOPER
+                ? ((SingleOpInstruction) condition).getSingleOperand()
+                : null;
+    }
+
+    /**
+     * @return whether the backends can branch on the operation directly, without computing its value first
+     */
+    private static boolean isBranchCondition(Instruction instruction) {
+        if (instruction.getInstType() == InstructionType.UNARYOPER) {
+            return ((UnaryOpInstruction) instruction).getOperation().getOpType() == OperationType.NOTB;
+        }
+        if (instruction.getInstType() != InstructionType.BINARYOPER) return false;
+
+        switch (((BinaryOpInstruction) instruction).getOperation().getOpType()) {
+            case LTH: case GTE: case EQ: case NEQ:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package pt.up.fe.comp.optimization;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Solves a dataflow problem over the instructions of a {@link ControlFlowGraph}, with sets of facts as
+ * {@link BitSet}s. The value after an instruction is computed from the value before it as gen ∪ (before − kill), in
+ * the direction of the problem, and the values flowing into an instruction are joined with the meet of the problem.
+ * Instructions are revisited from a worklist until no value changes.
+ */
+public class DataflowSolver {
+    public enum Direction {
+        FORWARD, BACKWARD
+    }
+
+    public enum Meet {
+        UNION, INTERSECTION
+    }
+
+    private final ControlFlowGraph cfg;
+    private final Direction direction;
+    private final Meet meet;
+    private final int numFacts;
+
+    private final List<BitSet> gen = new ArrayList<>();
+    private final List<BitSet> kill = new ArrayList<>();
+    private BitSet boundary = new BitSet();
+
+    private final List<BitSet> before = new ArrayList<>();
+    private final List<BitSet> after = new ArrayList<>();
+
+    /**
+     * @param numFacts the number of facts, which is the value of the top of the lattice of an intersection problem
+     */
+    public DataflowSolver(ControlFlowGraph cfg, Direction direction, Meet meet, int numFacts) {
+        this.cfg = cfg;
+        this.direction = direction;
+        this.meet = meet;
+        this.numFacts = numFacts;
+
+        for (int i = 0; i < cfg.size(); i++) {
+            gen.add(new BitSet());
+            kill.add(new BitSet());
+        }
+    }
+
+    public BitSet getGen(int instruction) {
+        return gen.get(instruction);
+    }
+
+    public BitSet getKill(int instruction) {
+        return kill.get(instruction);
+    }
+
+    /**
+     * Sets the value flowing into the method, at its entry for forward problems and at its exits for backward
+     * problems. Empty by default.
+     */
+    public void setBoundary(BitSet boundary) {
+        this.boundary = boundary;
+    }
+
+    public void solve() {
+        int size = cfg.size();
+        before.clear();
+        after.clear();
+
+        for (int i = 0; i < size; i++) {
+            before.add(initialValue());
+            after.add(initialValue());
+        }
+
+        // Visiting in the direction of the flow first makes most values final in the first round
+        Deque<Integer> worklist = new ArrayDeque<>();
+        boolean[] inWorklist = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            worklist.add(direction == Direction.FORWARD ? i : size - 1 - i);
+            inWorklist[i] = true;
+        }
+
+        while (!worklist.isEmpty()) {
+            int instruction = worklist.poll();
+            inWorklist[instruction] = false;
+
+            BitSet input = getInput(instruction);
+            BitSet output = (BitSet) input.clone();
+            output.andNot(kill.get(instruction));
+            output.or(gen.get(instruction));
+
+            List<BitSet> inputs = direction == Direction.FORWARD ? before : after;
+            List<BitSet> outputs = direction == Direction.FORWARD ? after : before;
+            inputs.set(instruction, input);
+
+            if (output.equals(outputs.get(instruction))) continue;
+            outputs.set(instruction, output);
+
+            List<Integer> dependents = direction == Direction.FORWARD
+                    ? cfg.getSuccessors(instruction)
+                    : cfg.getPredecessors(instruction);
+
+            for (int dependent : dependents) {
+                if (!inWorklist[dependent]) {
+                    worklist.add(dependent);
+                    inWorklist[dependent] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the value before the instruction, in program order
+     */
+    public BitSet getBefore(int instruction) {
+        return before.get(instruction);
+    }
+
+    /**
+     * @return the value after the instruction, in program order
+     */
+    public BitSet getAfter(int instruction) {
+        return after.get(instruction);
+    }
+
+    private BitSet getInput(int instruction) {
+        List<Integer> sources;
+        List<BitSet> values;
+        boolean atBoundary;
+
+        if (direction == Direction.FORWARD) {
+            sources = cfg.getPredecessors(instruction);
+            values = after;
+            atBoundary = instruction == 0;
+        } else {
+            sources = cfg.getSuccessors(instruction);
+            values = before;
+            atBoundary = cfg.isExit(instruction);
+        }
+
+        BitSet input = null;
+        if (atBoundary) input = (BitSet) boundary.clone();
+
+        for (int source : sources) {
+            if (input == null) {
+                input = (BitSet) values.get(source).clone();
+            } else if (meet == Meet.UNION) {
+                input.or(values.get(source));
+            } else {
+                input.and(values.get(source));
+            }
+        }
+
+        // Unreachable instructions keep the top of the lattice
+        return input != null ? input : initialValue();
+    }
+
+    private BitSet initialValue() {
+        BitSet value = new BitSet(numFacts);
+        if (meet == Meet.INTERSECTION) value.set(0, numFacts);
+        return value;
+    }
+}
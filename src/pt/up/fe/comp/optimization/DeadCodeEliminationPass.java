@@ -0,0 +1,164 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes the code that cannot affect the result of a method: branches on constant conditions become gotos or are
+ * removed, instructions no path from the entry reaches are removed, as are jumps to the next instruction, and so are
+ * assignments to locals that are not live after them. A dead assignment of the result of a method call keeps the
+ * call, whose result the backends then pop. Labels no jump targets anymore are dropped.
+ */
+public class DeadCodeEliminationPass implements OllirPass {
+
+    @Override
+    public String getName() {
+        return "deadcode";
+    }
+
+    @Override
+    public boolean run(Method method) {
+        boolean changed = foldConstantBranches(method);
+        changed |= removeUnreachableInstructions(method);
+        changed |= removeJumpsToNext(method);
+        changed |= removeDeadStores(method);
+        removeUnusedLabels(method);
+
+        return changed;
+    }
+
+    private static boolean foldConstantBranches(Method method) {
+        List<Instruction> instructions = method.getInstructions();
+        BitSet removed = new BitSet();
+        boolean changed = false;
+
+        for (int i = 0; i < instructions.size(); i++) {
+            if (instructions.get(i).getInstType() != InstructionType.BRANCH) continue;
+
+            CondBranchInstruction branch = (CondBranchInstruction) instructions.get(i);
+            Integer condition = OllirInstructionUtils.evaluate(branch.getCondition());
+            if (condition == null) continue;
+
+            if (condition != 0) {
+                OllirInstructionUtils.replaceInstruction(method, i, new GotoInstruction(branch.getLabel()));
+                changed = true;
+            } else {
+                removed.set(i);
+            }
+        }
+
+        OllirInstructionUtils.removeInstructions(method, removed);
+        return changed || !removed.isEmpty();
+    }
+
+    private static boolean removeUnreachableInstructions(Method method) {
+        ControlFlowGraph cfg = new ControlFlowGraph(method);
+
+        BitSet unreachable = cfg.getReachable();
+        unreachable.flip(0, cfg.size());
+        if (unreachable.isEmpty()) return false;
+
+        OllirInstructionUtils.removeInstructions(method, unreachable);
+        return true;
+    }
+
+    private static boolean removeJumpsToNext(Method method) {
+        ControlFlowGraph cfg = new ControlFlowGraph(method);
+        BitSet removed = new BitSet();
+
+        // Conditions have no side effects, so a branch whose both targets are the next instruction does nothing
+        for (int i = 0; i + 1 < cfg.size(); i++) {
+            InstructionType type = cfg.getInstructions().get(i).getInstType();
+            if (type != InstructionType.GOTO && type != InstructionType.BRANCH) continue;
+
+            if (!cfg.isExit(i) && cfg.getSuccessors(i).equals(List.of(i + 1))) removed.set(i);
+        }
+
+        if (removed.isEmpty()) return false;
+
+        OllirInstructionUtils.removeInstructions(method, removed);
+        return true;
+    }
+
+    /**
+     * Removes the labels no jump targets anymore, which do not change the code.
+     */
+    private static void removeUnusedLabels(Method method) {
+        Set<String> targets = new HashSet<>();
+        for (Instruction instruction : method.getInstructions()) {
+            if (instruction.getInstType() == InstructionType.GOTO) {
+                targets.add(((GotoInstruction) instruction).getLabel());
+            } else if (instruction.getInstType() == InstructionType.BRANCH) {
+                targets.add(((CondBranchInstruction) instruction).getLabel());
+            }
+        }
+
+        method.getLabels().keySet().retainAll(targets);
+    }
+
+    /**
+     * Removes the assignments to locals that are not live after them.
+     *
+     * @return whether some assignment was removed or replaced with its call
+     */
+    static boolean removeDeadStores(Method method) {
+        LivenessAnalysis liveness = new LivenessAnalysis(method);
+        List<Instruction> instructions = liveness.getInstructions();
+        BitSet removed = new BitSet();
+        boolean changed = false;
+
+        for (int i = 0; i < instructions.size(); i++) {
+            int variable = liveness.getVariableIndex(
+                    OllirInstructionUtils.getAssignedVariable(instructions.get(i)));
+            if (variable < 0 || liveness.getLiveOut(i).get(variable)) continue;
+
+            Instruction rhs = ((AssignInstruction) instructions.get(i)).getRhs();
+            if (isInvocation(rhs)) {
+                OllirInstructionUtils.replaceInstruction(method, i, rhs);
+                changed = true;
+            } else if (!hasSideEffects(rhs)) {
+                removed.set(i);
+            }
+        }
+
+        OllirInstructionUtils.removeInstructions(method, removed);
+        return changed || !removed.isEmpty();
+    }
+
+    private static boolean isInvocation(Instruction instruction) {
+        if (instruction.getInstType() != InstructionType.CALL) return false;
+
+        switch (((CallInstruction) instruction).getInvocationType()) {
+            case invokevirtual: case invokeinterface: case invokespecial: case invokestatic:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return whether computing the value may do more than produce it, like throwing or creating an object
+     */
+    private static boolean hasSideEffects(Instruction instruction) {
+        switch (instruction.getInstType()) {
+            case NOPER:
+                // Array reads may throw
+                return ((SingleOpInstruction) instruction).getSingleOperand() instanceof ArrayOperand;
+            case BINARYOPER:
+                BinaryOpInstruction binaryOp = (BinaryOpInstruction) instruction;
+                if (binaryOp.getOperation().getOpType() != OperationType.DIV) return false;
+
+                Element divisor = binaryOp.getRightOperand();
+                return !divisor.isLiteral() || Integer.parseInt(((LiteralElement) divisor).getLiteral()) == 0;
+            case UNARYOPER:
+            case GETFIELD:
+                return false;
+            default:
+                return true;
+        }
+    }
+}
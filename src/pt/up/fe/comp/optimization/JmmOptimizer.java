@@ -1,17 +1,84 @@
 package pt.up.fe.comp.optimization;
 
+import org.specs.comp.ollir.ClassUnit;
+import pt.up.fe.comp.ParallelUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.analysis.JmmSymbolTable;
+import pt.up.fe.comp.ast.AstUtils;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ollir.JmmOptimization;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 
 public class JmmOptimizer implements JmmOptimization {
+    @Override
+    public JmmSemanticsResult optimize(JmmSemanticsResult semanticsResult) {
+        Map<String, String> config = semanticsResult.getConfig();
+        if (config == null || !"true".equals(config.get("optimize"))
+                || TestUtils.getNumErrors(semanticsResult.getReports()) > 0) {
+            return semanticsResult;
+        }
+
+        List<JmmNode> methodNodes = new ArrayList<>();
+        for (JmmNode child : semanticsResult.getRootNode().getChildren()) {
+            if (!child.getKind().equals("ClassDeclaration")) continue;
+
+            for (JmmNode member : child.getChildren()) {
+                if (AstUtils.isMethod(member)) methodNodes.add(member);
+            }
+        }
+
+        // Each method only changes its own subtree
+        JmmSymbolTable symbolTable = (JmmSymbolTable) semanticsResult.getSymbolTable();
+        ParallelUtils.mapInOrder(methodNodes, methodNode -> {
+            ConstantPropagator.propagate(methodNode, symbolTable);
+            return methodNode;
+        });
+
+        return semanticsResult;
+    }
+
     @Override
     public OllirResult toOllir(JmmSemanticsResult semanticsResult) {
+        Map<String, String> config = semanticsResult.getConfig();
+
+        OllirBuilder builder = new OllirBuilder(semanticsResult.getSymbolTable(), config);
+        builder.visit(semanticsResult.getRootNode(), null);
+
+        ClassUnit ollirClass = builder.getOllirClass();
+
+        // "text" prints the class as OLLIR code and parses it back, to check the code that is written matches the class
+        if (config != null && "text".equals(config.get("ollir"))) {
+            return new OllirResult(semanticsResult, OllirPrinter.toOllirCode(ollirClass), builder.getReports());
+        }
+
+        return new OllirResult(semanticsResult, ollirClass, () -> OllirPrinter.toOllirCode(ollirClass),
+                builder.getReports());
+    }
+
+    @Override
+    public OllirResult optimize(OllirResult ollirResult) {
+        Map<String, String> config = ollirResult.getConfig();
+        if (config == null || TestUtils.getNumErrors(ollirResult.getReports()) > 0) return ollirResult;
+
+        OllirPassManager passManager = new OllirPassManager(config);
+        ollirResult.getReports().addAll(passManager.getReports());
+        if (!passManager.getReports().isEmpty()) return ollirResult;
+
+        ollirResult.getReports().addAll(passManager.run(ollirResult.getOllirClass()));
 
-        OllirGenerator generator = new OllirGenerator(semanticsResult.getSymbolTable());
-        generator.visit(semanticsResult.getRootNode(), null);
+        // -1 keeps one register per variable, 0 uses as few as possible, and n uses at most n
+        int registerAllocation = Integer.parseInt(config.getOrDefault("registerAllocation", "-1"));
+        if (registerAllocation >= 0) {
+            RegisterAllocator allocator = new RegisterAllocator(ollirResult.getOllirClass(), registerAllocation);
+            ollirResult.getReports().addAll(allocator.allocate());
+        }
 
-        return new OllirResult(semanticsResult, generator.getCode(), generator.getReports());
+        return ollirResult;
     }
 }
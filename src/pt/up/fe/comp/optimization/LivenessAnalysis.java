@@ -0,0 +1,144 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes which local variables of a method are live before and after each instruction, as a backward
+ * {@link DataflowSolver} problem over the {@link ControlFlowGraph} of the method. Parameters, fields and 'this' are not
+ * tracked, as their registers are fixed. Sets of variables are {@link BitSet}s indexed by the position of the variable
+ * in {@link #getVariables()}.
+ */
+public class LivenessAnalysis {
+    private final List<Instruction> instructions;
+    private final List<String> variables = new ArrayList<>();
+    private final Map<String, Integer> variableIndices = new HashMap<>();
+
+    private final DataflowSolver solver;
+
+    public LivenessAnalysis(Method method) {
+        this(method, new ControlFlowGraph(method));
+    }
+
+    public LivenessAnalysis(Method method, ControlFlowGraph cfg) {
+        this.instructions = method.getInstructions();
+
+        // Variables are numbered in register order, so the analysis does not depend on the order of the table
+        for (String variable : OllirInstructionUtils.getLocalVariables(method)) {
+            variableIndices.put(variable, variables.size());
+            variables.add(variable);
+        }
+
+        // A variable is live before an instruction that uses it, and dead before one that only defines it
+        solver = new DataflowSolver(cfg, DataflowSolver.Direction.BACKWARD, DataflowSolver.Meet.UNION,
+                variables.size());
+        for (int i = 0; i < instructions.size(); i++) {
+            addUsesAndDefs(instructions.get(i), solver.getGen(i), solver.getKill(i));
+        }
+
+        solver.solve();
+    }
+
+    public List<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the index of the given local variable, or -1 if it is not a tracked local
+     */
+    public int getVariableIndex(String name) {
+        return variableIndices.getOrDefault(name, -1);
+    }
+
+    public BitSet getUse(int instruction) {
+        return solver.getGen(instruction);
+    }
+
+    public BitSet getDef(int instruction) {
+        return solver.getKill(instruction);
+    }
+
+    public BitSet getLiveIn(int instruction) {
+        return solver.getBefore(instruction);
+    }
+
+    public BitSet getLiveOut(int instruction) {
+        return solver.getAfter(instruction);
+    }
+
+    private void addUsesAndDefs(Instruction instruction, BitSet use, BitSet def) {
+        switch (instruction.getInstType()) {
+            case ASSIGN:
+                AssignInstruction assign = (AssignInstruction) instruction;
+                addUsesAndDefs(assign.getRhs(), use, def);
+
+                // Storing into an array element reads the array reference and the index
+                if (assign.getDest() instanceof ArrayOperand) {
+                    addUses(assign.getDest(), use);
+                } else {
+                    int index = getVariableIndex(assign.getDest());
+                    if (index >= 0) def.set(index);
+                }
+                break;
+            case CALL:
+                CallInstruction call = (CallInstruction) instruction;
+                addUses(call.getFirstArg(), use);
+                if (call.getListOfOperands() != null) {
+                    for (Element operand : call.getListOfOperands()) {
+                        addUses(operand, use);
+                    }
+                }
+                break;
+            case BRANCH:
+                for (Element operand : ((CondBranchInstruction) instruction).getOperands()) {
+                    addUses(operand, use);
+                }
+                break;
+            case RETURN:
+                ReturnInstruction returnInstruction = (ReturnInstruction) instruction;
+                if (returnInstruction.hasReturnValue()) addUses(returnInstruction.getOperand(), use);
+                break;
+            case PUTFIELD:
+                addUses(((PutFieldInstruction) instruction).getThirdOperand(), use);
+                break;
+            case UNARYOPER:
+                addUses(((UnaryOpInstruction) instruction).getOperand(), use);
+                break;
+            case BINARYOPER:
+                addUses(((BinaryOpInstruction) instruction).getLeftOperand(), use);
+                addUses(((BinaryOpInstruction) instruction).getRightOperand(), use);
+                break;
+            case NOPER:
+                addUses(((SingleOpInstruction) instruction).getSingleOperand(), use);
+                break;
+            default:
+                // Gotos and field reads only use 'this' and fields
+                break;
+        }
+    }
+
+    private void addUses(Element element, BitSet use) {
+        int index = getVariableIndex(element);
+        if (index >= 0) use.set(index);
+
+        if (element instanceof ArrayOperand) {
+            for (Element indexOperand : ((ArrayOperand) element).getIndexOperands()) {
+                addUses(indexOperand, use);
+            }
+        }
+    }
+
+    private int getVariableIndex(Element element) {
+        String name = OllirInstructionUtils.getVariableName(element);
+        return name != null ? getVariableIndex(name) : -1;
+    }
+}
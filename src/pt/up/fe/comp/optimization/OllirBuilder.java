@@ -0,0 +1,187 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+import pt.up.fe.comp.ParallelUtils;
+import pt.up.fe.comp.analysis.JmmMethod;
+import pt.up.fe.comp.analysis.JmmSymbolTable;
+import pt.up.fe.comp.analysis.JmmSymbolTableBuilder;
+import pt.up.fe.comp.ast.AstUtils;
+import pt.up.fe.comp.analysis.MethodSignature;
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.AJmmVisitor;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the OLLIR class directly from the AST, so that no OLLIR code has to be generated and parsed again. The OLLIR
+ * code can still be obtained from the class with {@link OllirPrinter}.
+ */
+public class OllirBuilder extends AJmmVisitor<Boolean, Boolean> {
+    private final SymbolTable symbolTable;
+    private final List<Report> reports = new ArrayList<>();
+    private final ClassUnit ollirClass = new ClassUnit();
+    private final Map<String, String> config;
+
+    OllirBuilder(SymbolTable symbolTable, Map<String, String> config) {
+        this.symbolTable = symbolTable;
+        this.config = config;
+        addVisits();
+    }
+
+    private void addVisits() {
+        addVisit("Program", this::programVisit);
+        addVisit("ClassDeclaration", this::classDeclarationVisit);
+        addVisit("MainMethod", this::mainMethodVisit);
+        addVisit("InstanceMethod", this::instanceMethodVisit);
+    }
+
+    public ClassUnit getOllirClass() {
+        return ollirClass;
+    }
+
+    public List<Report> getReports() {
+        return reports;
+    }
+
+    private Boolean programVisit(JmmNode programNode, Boolean dummy) {
+        for (String importedPkg : symbolTable.getImports()) {
+            ollirClass.addImport(importedPkg);
+        }
+
+        for (JmmNode child : programNode.getChildren()) {
+            visit(child);
+        }
+
+        ollirClass.buildVarTables();
+        return true;
+    }
+
+    private Boolean classDeclarationVisit(JmmNode classNode, Boolean dummy) {
+        ollirClass.setClassName(symbolTable.getClassName());
+        ollirClass.setClassAccessModifier(AccessModifiers.PUBLIC);
+
+        if (symbolTable.getSuper() != null) {
+            ollirClass.setSuperClass(symbolTable.getSuper());
+        }
+
+        for (Symbol field : symbolTable.getFields()) {
+            Field ollirField = new Field();
+            ollirField.setFieldName(field.getName());
+            ollirField.setFieldType(OllirGeneratorUtils.toOllirModelType(field.getType()));
+            ollirClass.addField(ollirField);
+        }
+
+        Method constructor = new Method(ollirClass);
+        constructor.setConstructMethod();
+        constructor.setMethodName(symbolTable.getClassName());
+        constructor.setReturnType(new Type(ElementType.VOID));
+        constructor.addInstr(new CallInstruction(CallType.invokespecial,
+                new Operand("this", new ClassType(ElementType.THIS, symbolTable.getClassName())),
+                new LiteralElement("\"<init>\"", new Type(ElementType.STRING)), new ArrayList<>(),
+                new Type(ElementType.VOID)));
+        ollirClass.addMethod(constructor);
+
+        // Methods only read the symbol table, so they are built concurrently and added in declaration order
+        List<JmmNode> methodNodes = new ArrayList<>();
+        for (JmmNode child : classNode.getChildren()) {
+            if (AstUtils.isMethod(child)) methodNodes.add(child);
+        }
+
+        Iterator<MethodResult> methods = ParallelUtils.mapInOrder(methodNodes, this::buildMethod).iterator();
+
+        for (JmmNode child : classNode.getChildren()) {
+            if (AstUtils.isMethod(child)) {
+                addMethod(methods.next());
+            } else {
+                visit(child);
+            }
+        }
+
+        return true;
+    }
+
+    private Boolean mainMethodVisit(JmmNode mainNode, Boolean dummy) {
+        addMethod(buildMethod(mainNode));
+        return true;
+    }
+
+    private Boolean instanceMethodVisit(JmmNode methodNode, Boolean dummy) {
+        addMethod(buildMethod(methodNode));
+        return true;
+    }
+
+    private void addMethod(MethodResult result) {
+        ollirClass.addMethod(result.method);
+        reports.addAll(result.reports);
+    }
+
+    /**
+     * A method built apart from the class, with the reports generated while building it.
+     */
+    private static class MethodResult {
+        private final Method method;
+        private final List<Report> reports;
+
+        private MethodResult(Method method, List<Report> reports) {
+            this.method = method;
+            this.reports = reports;
+        }
+    }
+
+    /**
+     * Builds the OLLIR method of a MainMethod or InstanceMethod node without adding it to the class. Temporaries and
+     * labels are numbered per method, so methods can be built in any order.
+     */
+    private MethodResult buildMethod(JmmNode methodNode) {
+        Method method = new Method(ollirClass);
+        method.setMethodAccessModifier(AccessModifiers.PUBLIC);
+
+        MethodSignature methodSignature;
+        if (methodNode.getKind().equals("MainMethod")) {
+            method.setStaticMethod();
+            methodSignature = MethodSignature.MAIN;
+        } else {
+            methodSignature = JmmSymbolTableBuilder.generateMethod(methodNode).getSignature();
+        }
+
+        List<Report> methodReports = new ArrayList<>();
+        methodScopeVisit(methodNode, methodSignature, method, methodReports);
+
+        return new MethodResult(method, methodReports);
+    }
+
+    private void methodScopeVisit(JmmNode methodNode, MethodSignature methodSignature, Method method,
+                                  List<Report> methodReports) {
+        JmmMethod jmmMethod = ((JmmSymbolTable) symbolTable).getMethodObject(methodSignature);
+
+        method.setMethodName(jmmMethod.getName());
+        method.setReturnType(OllirGeneratorUtils.toOllirModelType(jmmMethod.getReturnType()));
+
+        // Parameters are numbered from 1 in instance methods, as 0 is 'this'
+        int paramId = method.isStaticMethod() ? 0 : 1;
+        for (Symbol param : jmmMethod.getParameters()) {
+            Operand ollirParam = new Operand(param.getName(), OllirGeneratorUtils.toOllirModelType(param.getType()));
+            ollirParam.setParamId(paramId++);
+            method.addParam(ollirParam);
+        }
+
+        OllirExpressionBuilder expressionBuilder = new OllirExpressionBuilder(config, methodReports, symbolTable, method,
+                methodSignature);
+
+        for (JmmNode child : methodNode.getJmmChild(2).getChildren()) {
+            expressionBuilder.visit(child);
+        }
+
+        if (!methodSignature.getReturnType().getName().equals("void")) {
+            expressionBuilder.visit(methodNode.getJmmChild(methodNode.getNumChildren() - 1));
+        } else {
+            expressionBuilder.addVoidReturn();
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+import pt.up.fe.comp.analysis.JmmMethod;
+import pt.up.fe.comp.analysis.JmmSymbolTable;
+import pt.up.fe.comp.analysis.MethodSignature;
+import pt.up.fe.comp.ast.AstUtils;
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.AJmmVisitor;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp.jmm.report.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Adds the instructions of a method directly to the OLLIR class, instead of writing them as OLLIR code.
+ *
+ * <p>
+ * Statements are added to the method as they are visited. Expressions return the instruction that computes them, which
+ * is a {@link SingleOpInstruction} when the expression is a single element.
+ */
+public class OllirExpressionBuilder extends AJmmVisitor<Boolean, Instruction> {
+    private final List<Report> reports;
+    private final SymbolTable symbolTable;
+    private final MethodSignature methodSignature;
+    private final Method method;
+    private final Map<String, String> config;
+
+    private final List<String> pendingLabels = new ArrayList<>();
+    private int tempCount = 0;
+
+    OllirExpressionBuilder(Map<String, String> config, List<Report> reports, SymbolTable symbolTable, Method method,
+                           MethodSignature methodSignature) {
+        this.config = config;
+        this.reports = reports;
+        this.symbolTable = symbolTable;
+        this.method = method;
+        this.methodSignature = methodSignature;
+
+        addVisits();
+    }
+
+    private void addVisits() {
+        addVisit("Statement", this::statementVisit);
+        addVisit("ReturnExpression", this::returnExpressionVisit);
+        addVisit("IDAssignment", this::idAssignmentVisit);
+        addVisit("ArrayAssignment", this::arrayAssignmentVisit);
+        addVisit("IfStatement", this::ifStatementVisit);
+        addVisit("WhileStatement", this::whileStatementVisit);
+        addVisit("ScopeStatement", this::scopeStatementVisit);
+
+        addVisit("ParenthesisExpression", this::parenthesisVisit);
+
+        addVisit("BinOp", this::binOpVisit);
+        addVisit("UnaryOp", this::unaryOpVisit);
+
+        addVisit("ArrayExpression", this::arrayExpressionVisit);
+        addVisit("AccessExpression", this::accessVisit);
+        addVisit("Literal", this::literalVisit);
+        addVisit("ID", this::idVisit);
+        addVisit("_New", this::newVisit);
+
+        setDefaultVisit(this::defaultVisit);
+    }
+
+    /**
+     * Takes the name of the next temporary, for when its type is only known after visiting its value.
+     */
+    private String reserveTmp() {
+        return "tmp" + tempCount++;
+    }
+
+    private Operand generateTmp(Type type) {
+        return new Operand(reserveTmp(), type);
+    }
+
+    private void addInstruction(Instruction instruction) {
+        for (String label : pendingLabels) {
+            method.addLabel(label, instruction);
+        }
+        pendingLabels.clear();
+
+        method.addInstr(instruction);
+    }
+
+    /**
+     * The label is placed on the next instruction added to the method.
+     */
+    private void addLabel(String label) {
+        pendingLabels.add(label);
+    }
+
+    private void addAssign(Element dest, Instruction rhs) {
+        addInstruction(new AssignInstruction(dest, dest.getType(), rhs));
+    }
+
+    void addVoidReturn() {
+        ReturnInstruction returnInstruction = new ReturnInstruction();
+        returnInstruction.setReturnType(new Type(ElementType.VOID));
+        addInstruction(returnInstruction);
+    }
+
+    /**
+     * @return the element computed by the instruction, storing it in a new temporary if it is not a single element
+     */
+    private Element toElement(Instruction instruction) {
+        if (instruction.getInstType() == InstructionType.NOPER) {
+            return ((SingleOpInstruction) instruction).getSingleOperand();
+        }
+
+        Operand tmp = generateTmp(getType(instruction));
+        addAssign(tmp, instruction);
+        return tmp;
+    }
+
+    private static Type getType(Instruction instruction) {
+        switch (instruction.getInstType()) {
+            case NOPER:
+                return ((SingleOpInstruction) instruction).getSingleOperand().getType();
+            case BINARYOPER:
+                switch (((BinaryOpInstruction) instruction).getOperation().getOpType()) {
+                    case ANDB: case LTH:
+                        return new Type(ElementType.BOOLEAN);
+                    default:
+                        return new Type(ElementType.INT32);
+                }
+            case UNARYOPER:
+                return new Type(ElementType.BOOLEAN);
+            case CALL:
+                return ((CallInstruction) instruction).getReturnType();
+            case GETFIELD:
+                return ((GetFieldInstruction) instruction).getFieldType();
+            default:
+                throw new RuntimeException("Instruction " + instruction.getInstType() + " does not have a value");
+        }
+    }
+
+    private Operand thisOperand() {
+        return new Operand("this", new ClassType(ElementType.THIS, symbolTable.getClassName()));
+    }
+
+    private static Operand fieldOperand(Symbol field) {
+        return new Operand(field.getName(), OllirGeneratorUtils.toOllirModelType(field.getType()));
+    }
+
+    private Instruction defaultVisit(JmmNode node, Boolean dummy) {
+        return null;
+    }
+
+    private Instruction returnExpressionVisit(JmmNode returnNode, Boolean dummy) {
+        Type returnType = OllirGeneratorUtils.toOllirModelType(methodSignature.getReturnType());
+        JmmNode expressionNode = returnNode.getJmmChild(0);
+
+        Element returnValue;
+        if (expressionNode.getKind().equals("BinOp") || expressionNode.getKind().equals("UnaryOp")) {
+            Operand tmp = generateTmp(returnType);
+            addAssign(tmp, visit(expressionNode));
+            returnValue = tmp;
+        } else {
+            returnValue = toElement(visit(expressionNode));
+        }
+
+        ReturnInstruction returnInstruction = new ReturnInstruction(returnValue);
+        returnInstruction.setReturnType(returnType);
+        addInstruction(returnInstruction);
+        return null;
+    }
+
+    private Instruction statementVisit(JmmNode statementNode, Boolean dummy) {
+        Instruction instruction = visit(statementNode.getJmmChild(0));
+
+        // Method calls are the only expressions that can be used as statements
+        if (instruction != null && instruction.getInstType() == InstructionType.CALL) {
+            addInstruction(instruction);
+        }
+
+        return null;
+    }
+
+    private Instruction idAssignmentVisit(JmmNode assignmentNode, Boolean dummy) {
+        JmmNode idNode = assignmentNode.getJmmChild(0);
+        JmmNode valueNode = assignmentNode.getJmmChild(1);
+
+        Symbol s = ((JmmSymbolTable) symbolTable).getLocalVar(methodSignature, idNode.get("name"));
+
+        if (s == null) {
+            s = findSymbol(idNode);
+
+            boolean isField = ((JmmSymbolTable) symbolTable).getFieldByName(idNode.get("name")) != null;
+
+            Instruction value;
+            if (valueNode.getKind().equals("BinOp") || valueNode.getKind().equals("AccessExpression") ||
+                    valueNode.getKind().equals("CallExpression")) {
+                Instruction op = visit(valueNode);
+                Operand tmp = generateTmp(getType(op));
+                addAssign(tmp, op);
+                value = new SingleOpInstruction(tmp);
+            } else {
+                value = visit(valueNode);
+            }
+
+            if (!isField) {
+                addAssign(toElement(visit(idNode)), value);
+            } else {
+                addInstruction(new PutFieldInstruction(thisOperand(), fieldOperand(s), toElement(value),
+                        new Type(ElementType.VOID)));
+            }
+
+            return null;
+        }
+
+        Operand dest = new Operand(s.getName(), OllirGeneratorUtils.toOllirModelType(s.getType()));
+        addAssign(dest, visit(valueNode));
+
+        return null;
+    }
+
+    private Instruction arrayAssignmentVisit(JmmNode assignmentNode, Boolean dummy) {
+        Symbol s = findSymbol(assignmentNode.getJmmChild(0));
+
+        assert s != null;
+        Operand idx = generateTmp(new Type(ElementType.INT32));
+        addAssign(idx, visit(assignmentNode.getJmmChild(1).getJmmChild(0)));
+
+        ArrayList<Element> indexes = new ArrayList<>();
+        indexes.add(idx);
+        ArrayOperand dest = new ArrayOperand(s.getName(),
+                OllirGeneratorUtils.toOllirModelType(s.getType().getName()), indexes);
+
+        addAssign(dest, visit(assignmentNode.getJmmChild(2)));
+
+        return null;
+    }
+
+    private Instruction binOpVisit(JmmNode binOpNode, Boolean dummy) {
+        Element[] op = new Element[2];
+        for (int i = 0; i < 2; i++) {
+            JmmNode child = binOpNode.getJmmChild(i);
+            if (!(child.getKind().equals("BinOp") ||
+                    child.getKind().equals("AccessExpression") ||
+                    child.getKind().equals("CallExpression") ||
+                    child.getKind().equals("UnaryOp"))) {
+                op[i] = toElement(visit(child));
+                continue;
+            }
+
+            String tmp = reserveTmp();
+            Instruction value = visit(child);
+            op[i] = new Operand(tmp, getType(value));
+            addAssign(op[i], value);
+        }
+
+        OperationType opType;
+        switch (binOpNode.get("op")) {
+            case "And":
+                opType = OperationType.ANDB;
+                break;
+            case "Less":
+                opType = OperationType.LTH;
+                break;
+            case "Add":
+                opType = OperationType.ADD;
+                break;
+            case "Sub":
+                opType = OperationType.SUB;
+                break;
+            case "Mult":
+                opType = OperationType.MUL;
+                break;
+            case "Div":
+                opType = OperationType.DIV;
+                break;
+            default:
+                throw new RuntimeException("Unknown binary operation " + binOpNode.get("op"));
+        }
+
+        return new BinaryOpInstruction(op[0], new Operation(opType, op[0].getType()), op[1]);
+    }
+
+    private Symbol findSymbol(JmmNode node) {
+        Symbol s = ((JmmSymbolTable) symbolTable).getLocalVar(methodSignature, node.get("name"));
+        if (s == null) {
+            s = ((JmmSymbolTable) symbolTable).getParameter(methodSignature, node.get("name"));
+            if (s == null) {
+                s = ((JmmSymbolTable) symbolTable).getFieldByName(node.get("name"));
+            }
+        }
+        return s;
+    }
+
+    private Instruction unaryOpVisit(JmmNode unaryNode, Boolean dummy) {
+        JmmNode child = unaryNode.getJmmChild(0);
+
+        Element op;
+        if (!(child.getKind().equals("BinOp") ||
+                child.getKind().equals("AccessExpression") ||
+                child.getKind().equals("CallExpression"))) {
+            op = toElement(visit(child));
+        } else {
+            String tmp = reserveTmp();
+            Instruction value = visit(child);
+            op = new Operand(tmp, getType(value));
+            addAssign(op, value);
+        }
+
+        if (!unaryNode.get("op").equals("Not")) {
+            throw new RuntimeException("Unknown unary operation " + unaryNode.get("op"));
+        }
+
+        return new UnaryOpInstruction(new Operation(OperationType.NOTB, op.getType()), op);
+    }
+
+    private Instruction arrayExpressionVisit(JmmNode arrayNode, Boolean dummy) {
+        String expResult = reserveTmp();
+        Operand index = new Operand(expResult, new Type(ElementType.INT32));
+        addAssign(index, visit(arrayNode.getJmmChild(1)));
+
+        Symbol s = ((JmmSymbolTable) symbolTable).getLocalVar(methodSignature, arrayNode.getJmmChild(0).get("name"));
+        if (s == null) {
+            s = ((JmmSymbolTable) symbolTable).getParameter(methodSignature, arrayNode.getJmmChild(0).get("name"));
+        }
+
+        ArrayList<Element> indexes = new ArrayList<>();
+        indexes.add(index);
+
+        return new SingleOpInstruction(new ArrayOperand(s.getName(),
+                OllirGeneratorUtils.toOllirModelType(s.getType().getName()), indexes));
+    }
+
+    private Instruction accessVisit(JmmNode accessNode, Boolean dummy) {
+        Element exp = toElement(visit(accessNode.getJmmChild(0)));
+
+        if (accessNode.getNumChildren() == 1) {
+            return new CallInstruction(CallType.arraylength, exp, new Type(ElementType.INT32));
+        }
+
+        JmmNode callNode = accessNode.getJmmChild(1);
+        String methodName = callNode.getJmmChild(0).get("name");
+
+        List<Symbol> parameterSymbols = new ArrayList<>();
+        for (JmmNode node : callNode.getJmmChild(1).getChildren()) {
+            if (node.getKind().equals("Literal")) {
+                parameterSymbols.add(new Symbol(AstUtils.getNodeType(node), "any"));
+            }
+            if (node.getKind().equals("ID")) {
+                Symbol s = findSymbol(node);
+                assert s != null;
+                parameterSymbols.add(s);
+            }
+        }
+
+        List<JmmMethod> methods = new ArrayList<>();
+        for (JmmMethod method : ((JmmSymbolTable) symbolTable).getMethodObjects()) {
+            if (method.getName().equals(methodName) && method.getParameters().size() == parameterSymbols.size()) {
+                boolean same = true;
+                for (int i = 0; i < parameterSymbols.size(); i++) {
+                    if (!method.getParameters().get(i).getType().equals(parameterSymbols.get(i).getType())) {
+                        same = false;
+                        break;
+                    }
+                }
+                if (same) {
+                    methods.add(method);
+                }
+            }
+        }
+
+        ArrayList<Element> parameters = new ArrayList<>();
+        for (JmmNode child : callNode.getJmmChild(1).getChildren()) {
+            if (child.getKind().equals("BinOp") || child.getKind().equals("UnaryOp") ||
+                    child.getKind().equals("ArrayExpression") || (child.getKind().equals("AccessExpression") && child.getNumChildren() == 1)) {
+                Instruction op = visit(child);
+
+                boolean isBoolean = child.getKind().equals("UnaryOp") ||
+                        (child.getKind().equals("BinOp") &&
+                                (child.get("op").equals("And") || child.get("op").equals("Less")));
+
+                Operand tmp = generateTmp(new Type(isBoolean ? ElementType.BOOLEAN : ElementType.INT32));
+                addAssign(tmp, op);
+                parameters.add(tmp);
+            } else if (child.getKind().equals("AccessExpression")) {
+                Instruction op = visit(child);
+
+                Operand tmp = generateTmp(getType(op));
+                addAssign(tmp, op);
+                parameters.add(tmp);
+            } else if (child.getKind().equals("Literal") && child.get("value").equals("this")) {
+                // As an argument, 'this' is an object reference of the current class
+                parameters.add(new Operand("this", new ClassType(ElementType.OBJECTREF, symbolTable.getClassName())));
+            } else {
+                parameters.add(toElement(visit(child)));
+            }
+        }
+
+        // Invocation type
+        // if var in var table -> invokevirtual
+        // if imported class -> invokestatic
+        CallType invocation;
+        if (accessNode.getJmmChild(0).getKind().equals("Literal") || findSymbol(accessNode.getJmmChild(0)) != null) {
+            invocation = CallType.invokevirtual;
+        } else {
+            invocation = CallType.invokestatic;
+        }
+
+        Type returnType;
+        if (!methods.isEmpty()) {
+            returnType = OllirGeneratorUtils.toOllirModelType(methods.get(0).getReturnType());
+        } else {
+            // Unknown method, the type is taken from where its value is used
+            Optional<JmmNode> ancestor = accessNode.getAncestor("IDAssignment");
+            if (ancestor.isPresent()) {
+                Symbol variable = findSymbol(ancestor.get().getJmmChild(0));
+                assert variable != null;
+                returnType = OllirGeneratorUtils.toOllirModelType(variable.getType());
+            } else if (accessNode.getJmmParent().getKind().equals("ReturnExpression")) {
+                returnType = OllirGeneratorUtils.toOllirModelType(methodSignature.getReturnType());
+            } else {
+                returnType = new Type(ElementType.VOID);
+            }
+        }
+
+        return new CallInstruction(invocation, exp,
+                new LiteralElement("\"" + methodName + "\"", new Type(ElementType.STRING)), parameters, returnType);
+    }
+
+    private Instruction parenthesisVisit(JmmNode parenthesisNode, Boolean dummy) {
+        Instruction op = visit(parenthesisNode.getJmmChild(0));
+        Operand tmp = generateTmp(getType(op));
+        addAssign(tmp, op);
+        return new SingleOpInstruction(tmp);
+    }
+
+    private Instruction scopeStatementVisit(JmmNode scopeNode, Boolean dummy) {
+        for (JmmNode child : scopeNode.getChildren()) {
+            visit(child);
+        }
+
+        return null;
+    }
+
+    private Instruction ifStatementVisit(JmmNode ifNode, Boolean dummy) {
+        String then = "Then" + tempCount++;
+        String after = "After" + tempCount++;
+        Operand tmp = generateTmp(new Type(ElementType.BOOLEAN));
+
+        addAssign(tmp, visit(ifNode.getJmmChild(0).getJmmChild(0)));
+        addBranch(tmp, then);
+
+        visit(ifNode.getJmmChild(2).getJmmChild(0));
+        addInstruction(new GotoInstruction(after));
+
+        addLabel(then);
+        visit(ifNode.getJmmChild(1).getJmmChild(0));
+        addLabel(after);
+
+        return null;
+    }
+
+    private Instruction whileStatementVisit(JmmNode whileNode, Boolean dummy) {
+        if (config != null && "true".equals(config.get("optimize"))) {
+            return doWhileStatementVisit(whileNode);
+        }
+
+        String loop = "Loop" + tempCount++;
+        String body = "Body" + tempCount++;
+        String end = "EndLoop" + tempCount++;
+        Operand tmp = generateTmp(new Type(ElementType.BOOLEAN));
+
+        addLabel(loop);
+        addAssign(tmp, visit(whileNode.getJmmChild(0).getJmmChild(0)));
+        addBranch(tmp, body);
+        addInstruction(new GotoInstruction(end));
+
+        addLabel(body);
+        visit(whileNode.getJmmChild(1).getJmmChild(0));
+        addInstruction(new GotoInstruction(loop));
+        addLabel(end);
+
+        return null;
+    }
+
+    /**
+     * Emits the loop as a do-while guarded by a test of the condition, which takes a single branch per iteration
+     * instead of a branch and a goto.
+     */
+    private Instruction doWhileStatementVisit(JmmNode whileNode) {
+        String body = "Body" + tempCount++;
+        String end = "EndLoop" + tempCount++;
+        JmmNode condition = whileNode.getJmmChild(0).getJmmChild(0);
+
+        Element guard = toElement(visit(condition));
+        OpCondInstruction guardBranch = new OpCondInstruction(new UnaryOpInstruction(
+                new Operation(OperationType.NOTB, new Type(ElementType.BOOLEAN)), guard));
+        guardBranch.setLabel(end);
+        addInstruction(guardBranch);
+
+        addLabel(body);
+        visit(whileNode.getJmmChild(1).getJmmChild(0));
+        addBranch(toElement(visit(condition)), body);
+        addLabel(end);
+
+        return null;
+    }
+
+    private void addBranch(Element condition, String label) {
+        SingleOpCondInstruction branch = new SingleOpCondInstruction(new SingleOpInstruction(condition));
+        branch.setLabel(label);
+        addInstruction(branch);
+    }
+
+    private Instruction literalVisit(JmmNode literalNode, Boolean dummy) {
+        String value = literalNode.get("value");
+
+        if (value.equals("this")) {
+            return new SingleOpInstruction(thisOperand());
+        }
+
+        if (value.equals("true")) {
+            value = "1";
+        } else if (value.equals("false")) {
+            value = "0";
+        }
+
+        return new SingleOpInstruction(new LiteralElement(value,
+                OllirGeneratorUtils.toOllirModelType(literalNode.get("type"), false)));
+    }
+
+    private Instruction newVisit(JmmNode newNode, Boolean dummy) {
+        if (newNode.get("type").equals("intArray")) {
+            Type arrayType = OllirGeneratorUtils.toOllirModelType(newNode.get("type"));
+            Operand tmp = generateTmp(arrayType);
+
+            ArrayList<Element> size = new ArrayList<>();
+            size.add(toElement(visit(newNode.getJmmChild(0))));
+
+            addAssign(tmp, new CallInstruction(CallType.NEW, new Operand("array", new ArrayType()), size, arrayType));
+            return new SingleOpInstruction(tmp);
+        }
+
+        String className = newNode.getJmmChild(0).get("type");
+        Type classType = OllirGeneratorUtils.toOllirModelType(className);
+        Operand tmp = generateTmp(classType);
+
+        addAssign(tmp, new CallInstruction(CallType.NEW, new Operand(className, classType), new ArrayList<>(), classType));
+        addInstruction(new CallInstruction(CallType.invokespecial, tmp,
+                new LiteralElement("\"<init>\"", new Type(ElementType.STRING)), new ArrayList<>(), new Type(ElementType.VOID)));
+
+        return new SingleOpInstruction(tmp);
+    }
+
+    private Instruction idVisit(JmmNode idNode, Boolean dummy) {
+        String name = idNode.get("name");
+        Symbol s = ((JmmSymbolTable) symbolTable).getLocalVar(methodSignature, name);
+
+        if (s != null) {
+            return new SingleOpInstruction(new Operand(name, OllirGeneratorUtils.toOllirModelType(s.getType())));
+        }
+
+        s = ((JmmSymbolTable) symbolTable).getParameter(methodSignature, name);
+
+        if (s != null) {
+            int idx = ((JmmSymbolTable) symbolTable).getParameterIndex(methodSignature, name);
+
+            Operand parameter = new Operand(name, OllirGeneratorUtils.toOllirModelType(s.getType()));
+            parameter.setParamId(JmmSymbolTable.isMain(methodSignature) ? idx : idx + 1);
+            return new SingleOpInstruction(parameter);
+        }
+
+        s = ((JmmSymbolTable) symbolTable).getFieldByName(name);
+        if (s == null) {
+            if (!((JmmSymbolTable) symbolTable).isImportedName(name)) {
+                reports.add(new Report(ReportType.ERROR, Stage.OPTIMIZATION, idNode.getColumn(), "Variable " + name + " not found"));
+            }
+
+            return new SingleOpInstruction(new Operand(name, new ClassType(ElementType.CLASS, name)));
+        }
+
+        Type fieldType = OllirGeneratorUtils.toOllirModelType(s.getType());
+        Operand tmp = generateTmp(fieldType);
+        addAssign(tmp, new GetFieldInstruction(thisOperand(), fieldOperand(s), fieldType));
+
+        return new SingleOpInstruction(tmp);
+    }
+}
@@ -0,0 +1,240 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+public abstract class OllirInstructionUtils {
+
+    /**
+     * @return the locals of the method, in register order, without the parameters, the fields and 'this', whose
+     * registers and values the OLLIR passes do not change
+     */
+    public static List<String> getLocalVariables(Method method) {
+        return method.getVarTable().entrySet().stream()
+                .filter(entry -> entry.getValue().getScope() == VarScope.LOCAL && !entry.getKey().equals("this"))
+                .sorted(Comparator.comparingInt(entry -> entry.getValue().getVirtualReg()))
+                .map(entry -> entry.getKey())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the name of the variable the element reads, or null for literals
+     */
+    public static String getVariableName(Element element) {
+        if (element == null || element.isLiteral()) return null;
+        return ((Operand) element).getName();
+    }
+
+    /**
+     * @return the variable assigned by the instruction, or null if it is not an assignment to a whole variable
+     */
+    public static String getAssignedVariable(Instruction instruction) {
+        if (instruction.getInstType() != InstructionType.ASSIGN) return null;
+
+        Element dest = ((AssignInstruction) instruction).getDest();
+        return dest instanceof ArrayOperand ? null : getVariableName(dest);
+    }
+
+    /**
+     * @return the element copied by an assignment like "a := b" or "a := 1", or null for other instructions
+     */
+    public static Element getCopiedElement(Instruction instruction) {
+        if (getAssignedVariable(instruction) == null) return null;
+
+        Instruction rhs = ((AssignInstruction) instruction).getRhs();
+        if (rhs.getInstType() != InstructionType.NOPER) return null;
+
+        Element element = ((SingleOpInstruction) rhs).getSingleOperand();
+        return element instanceof ArrayOperand ? null : element;
+    }
+
+    /**
+     * Computes operations whose operands are all literals, as the JVM would. Booleans are 1 or 0.
+     *
+     * @return the value of the instruction, or null if it is not constant or would throw, as divisions by zero do
+     */
+    public static Integer evaluate(Instruction instruction) {
+        switch (instruction.getInstType()) {
+            case NOPER:
+                return getLiteralValue(((SingleOpInstruction) instruction).getSingleOperand());
+            case UNARYOPER: {
+                UnaryOpInstruction unaryOp = (UnaryOpInstruction) instruction;
+                Integer value = getLiteralValue(unaryOp.getOperand());
+                if (value == null) return null;
+
+                OperationType opType = unaryOp.getOperation().getOpType();
+                return opType == OperationType.NOTB || opType == OperationType.NOT ? toInt(value == 0) : null;
+            }
+            case BINARYOPER: {
+                BinaryOpInstruction binaryOp = (BinaryOpInstruction) instruction;
+                Integer left = getLiteralValue(binaryOp.getLeftOperand());
+                Integer right = getLiteralValue(binaryOp.getRightOperand());
+                if (left == null || right == null) return null;
+
+                switch (binaryOp.getOperation().getOpType()) {
+                    case ADD: return left + right;
+                    case SUB: return left - right;
+                    case MUL: return left * right;
+                    case DIV: return right != 0 ? left / right : null;
+                    case LTH: return toInt(left < right);
+                    case GTH: return toInt(left > right);
+                    case LTE: return toInt(left <= right);
+                    case GTE: return toInt(left >= right);
+                    case EQ: return toInt(left.equals(right));
+                    case NEQ: return toInt(!left.equals(right));
+                    case ANDB: return toInt(left != 0 && right != 0);
+                    case ORB: return toInt(left != 0 || right != 0);
+                    default: return null;
+                }
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static Integer getLiteralValue(Element element) {
+        if (element == null || !element.isLiteral()) return null;
+        return Integer.parseInt(((LiteralElement) element).getLiteral());
+    }
+
+    private static int toInt(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    /**
+     * Replaces the instruction at the given index, moving its labels to the new instruction.
+     */
+    public static void replaceInstruction(Method method, int index, Instruction instruction) {
+        Instruction previous = method.getInstructions().set(index, instruction);
+
+        for (Map.Entry<String, Instruction> label : method.getLabels().entrySet()) {
+            if (label.getValue() == previous) label.setValue(instruction);
+        }
+    }
+
+    /**
+     * Removes the instructions at the given indices. Their labels move to the next instruction that is kept, so jumps
+     * to a removed instruction continue from where it was, and the labels after the last kept instruction are dropped.
+     */
+    public static void removeInstructions(Method method, BitSet removed) {
+        List<Instruction> instructions = method.getInstructions();
+
+        Map<Instruction, Instruction> labelTargets = new IdentityHashMap<>();
+        Instruction next = null;
+        for (int i = instructions.size() - 1; i >= 0; i--) {
+            if (!removed.get(i)) next = instructions.get(i);
+            labelTargets.put(instructions.get(i), next);
+        }
+
+        Iterator<Map.Entry<String, Instruction>> labels = method.getLabels().entrySet().iterator();
+        while (labels.hasNext()) {
+            Map.Entry<String, Instruction> label = labels.next();
+            if (!labelTargets.containsKey(label.getValue())) continue;
+
+            Instruction target = labelTargets.get(label.getValue());
+            if (target != null) {
+                label.setValue(target);
+            } else {
+                labels.remove();
+            }
+        }
+
+        List<Instruction> kept = new ArrayList<>();
+        for (int i = 0; i < instructions.size(); i++) {
+            if (!removed.get(i)) kept.add(instructions.get(i));
+        }
+
+        instructions.clear();
+        instructions.addAll(kept);
+    }
+
+    /**
+     * Replaces the elements the instruction reads with the result of the given function, which returns its argument
+     * to keep it. The object of calls is never replaced, as calls cannot change it.
+     *
+     * @param arrayIndices whether the indices of array accesses are replaced too
+     * @return whether some element was replaced
+     */
+    public static boolean replaceUses(Instruction instruction, UnaryOperator<Element> replacement,
+                                      boolean arrayIndices) {
+        boolean[] changed = {false};
+        replaceElements(instruction, element -> {
+            Element result = replacement.apply(element);
+            if (result != element) changed[0] = true;
+            return result;
+        }, arrayIndices);
+
+        return changed[0];
+    }
+
+    private static void replaceElements(Instruction instruction, UnaryOperator<Element> replacement,
+                                        boolean arrayIndices) {
+        switch (instruction.getInstType()) {
+            case ASSIGN:
+                AssignInstruction assign = (AssignInstruction) instruction;
+                replaceElements(assign.getRhs(), replacement, arrayIndices);
+                if (arrayIndices && assign.getDest() instanceof ArrayOperand) {
+                    replaceIndices((ArrayOperand) assign.getDest(), replacement);
+                }
+                break;
+            case CALL:
+                List<Element> operands = ((CallInstruction) instruction).getListOfOperands();
+                if (operands != null) {
+                    operands.replaceAll(operand -> replace(operand, replacement, arrayIndices));
+                }
+                break;
+            case BRANCH:
+                replaceElements(((CondBranchInstruction) instruction).getCondition(), replacement, arrayIndices);
+                break;
+            case RETURN:
+                ReturnInstruction returnInstruction = (ReturnInstruction) instruction;
+                if (returnInstruction.hasReturnValue()) {
+                    returnInstruction.setOperand(replace(returnInstruction.getOperand(), replacement, arrayIndices));
+                }
+                break;
+            case PUTFIELD:
+                PutFieldInstruction putField = (PutFieldInstruction) instruction;
+                putField.setThirdOperand(replace(putField.getThirdOperand(), replacement, arrayIndices));
+                break;
+            case UNARYOPER:
+                UnaryOpInstruction unaryOp = (UnaryOpInstruction) instruction;
+                unaryOp.setOperand(replace(unaryOp.getOperand(), replacement, arrayIndices));
+                break;
+            case BINARYOPER:
+                BinaryOpInstruction binaryOp = (BinaryOpInstruction) instruction;
+                binaryOp.setLeftOperand(replace(binaryOp.getLeftOperand(), replacement, arrayIndices));
+                binaryOp.setRightOperand(replace(binaryOp.getRightOperand(), replacement, arrayIndices));
+                break;
+            case NOPER:
+                SingleOpInstruction singleOp = (SingleOpInstruction) instruction;
+                singleOp.setSingleOperand(replace(singleOp.getSingleOperand(), replacement, arrayIndices));
+                break;
+            default:
+                // Gotos and field reads only read 'this' and fields
+                break;
+        }
+    }
+
+    private static Element replace(Element element, UnaryOperator<Element> replacement, boolean arrayIndices) {
+        // The array of an access is a reference, which is only replaced through its indices
+        if (element instanceof ArrayOperand) {
+            if (arrayIndices) replaceIndices((ArrayOperand) element, replacement);
+            return element;
+        }
+
+        return replacement.apply(element);
+    }
+
+    private static void replaceIndices(ArrayOperand arrayOperand, UnaryOperator<Element> replacement) {
+        arrayOperand.getIndexOperands().replaceAll(replacement);
+    }
+}
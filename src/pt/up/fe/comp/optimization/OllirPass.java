@@ -0,0 +1,20 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.Method;
+
+/**
+ * A transformation of the instructions of an OLLIR method, run by the {@link OllirPassManager}. Passes keep no state
+ * between methods, as the methods of a class are transformed concurrently.
+ */
+public interface OllirPass {
+
+    /**
+     * @return the name that enables the pass in the "passes" config
+     */
+    String getName();
+
+    /**
+     * @return whether the method was changed
+     */
+    boolean run(Method method);
+}
@@ -0,0 +1,104 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Method;
+import pt.up.fe.comp.ParallelUtils;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp.jmm.report.Stage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the enabled {@link OllirPass}es on every method of a class, in order, and repeats them while some pass changes
+ * the method, as one pass may expose more work for another. The "passes" config is a comma-separated list of the
+ * passes to enable; without it, all passes run when "optimize" is set and none otherwise.
+ */
+public class OllirPassManager {
+    private static final int MAX_ROUNDS = 10;
+
+    private final List<OllirPass> passes = new ArrayList<>();
+    private final List<Report> reports = new ArrayList<>();
+
+    public OllirPassManager(Map<String, String> config) {
+        Map<String, OllirPass> availablePasses = new LinkedHashMap<>();
+        for (OllirPass pass : List.of(new ConstantPropagationPass(), new CopyPropagationPass(),
+                new DeadCodeEliminationPass())) {
+            availablePasses.put(pass.getName(), pass);
+        }
+
+        String enabledPasses = config.get("passes");
+        if (enabledPasses == null) {
+            if ("true".equals(config.get("optimize"))) passes.addAll(availablePasses.values());
+            return;
+        }
+
+        for (String name : enabledPasses.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) continue;
+
+            OllirPass pass = availablePasses.get(name);
+            if (pass == null) {
+                reports.add(Report.newError(Stage.OPTIMIZATION, -1, -1, "Unknown OLLIR pass '" + name
+                        + "', expected one of " + String.join(", ", availablePasses.keySet()), null));
+            } else if (!passes.contains(pass)) {
+                passes.add(pass);
+            }
+        }
+    }
+
+    /**
+     * @return the errors in the config, which must be checked before running the passes
+     */
+    public List<Report> getReports() {
+        return reports;
+    }
+
+    /**
+     * Transforms the methods of the class.
+     *
+     * @return a log report with the time spent in each pass over all the methods
+     */
+    public List<Report> run(ClassUnit ollirClass) {
+        if (passes.isEmpty()) return List.of();
+
+        // Each method only changes its own instructions
+        long[] totalTimes = new long[passes.size()];
+        for (long[] methodTimes : ParallelUtils.mapInOrder(ollirClass.getMethods(), this::run)) {
+            for (int i = 0; i < passes.size(); i++) {
+                totalTimes[i] += methodTimes[i];
+            }
+        }
+
+        List<Report> timeReports = new ArrayList<>();
+        for (int i = 0; i < passes.size(); i++) {
+            timeReports.add(new Report(ReportType.LOG, Stage.OPTIMIZATION, -1, "OLLIR pass "
+                    + passes.get(i).getName() + " took " + String.format("%.3f", totalTimes[i] / 1e6) + " ms"));
+        }
+
+        return timeReports;
+    }
+
+    /**
+     * @return the time spent in each pass, in nanoseconds
+     */
+    private long[] run(Method method) {
+        long[] times = new long[passes.size()];
+
+        boolean changed = true;
+        for (int round = 0; changed && round < MAX_ROUNDS; round++) {
+            changed = false;
+
+            for (int i = 0; i < passes.size(); i++) {
+                long start = System.nanoTime();
+                changed |= passes.get(i).run(method);
+                times[i] += System.nanoTime() - start;
+            }
+        }
+
+        return times;
+    }
+}
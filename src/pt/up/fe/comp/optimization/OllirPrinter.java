@@ -0,0 +1,293 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes an OLLIR class as OLLIR code that {@link pt.up.fe.comp.jmm.ollir.OllirUtils} can parse back.
+ */
+public class OllirPrinter {
+    private final StringBuilder code = new StringBuilder();
+
+    private OllirPrinter() {
+    }
+
+    public static String toOllirCode(ClassUnit ollirClass) {
+        OllirPrinter printer = new OllirPrinter();
+        printer.printClass(ollirClass);
+        return printer.code.toString();
+    }
+
+    private String spaces(int indent) {
+        return " ".repeat(indent * OllirGeneratorUtils.getNumSpaces(null));
+    }
+
+    private void printClass(ClassUnit ollirClass) {
+        for (String importedPkg : ollirClass.getImports()) {
+            code.append("import ").append(importedPkg).append(";\n");
+        }
+        code.append('\n');
+
+        code.append(getAccessModifier(ollirClass.getClassAccessModifier()));
+        code.append(ollirClass.getClassName());
+
+        if (ollirClass.getSuperClass() != null) {
+            code.append(" extends ").append(ollirClass.getSuperClass());
+        }
+
+        code.append(" {\n");
+
+        for (Field field : ollirClass.getFields()) {
+            code.append(spaces(1));
+            code.append(".field ").append(getAccessModifier(field.getFieldAccessModifier()));
+            code.append(field.getFieldName()).append(".").append(getType(field.getFieldType()));
+            code.append(";\n");
+        }
+
+        code.append("\n\n");
+
+        for (Method method : ollirClass.getMethods()) {
+            printMethod(method);
+            code.append("\n");
+        }
+
+        code.append("}");
+    }
+
+    private void printMethod(Method method) {
+        code.append(spaces(1));
+
+        if (method.isConstructMethod()) {
+            code.append(".construct ");
+        } else {
+            code.append(".method ").append(getAccessModifier(method.getMethodAccessModifier()));
+            if (method.isStaticMethod()) {
+                code.append("static ");
+            }
+        }
+
+        String params = method.getParams().stream()
+                .map(param -> ((Operand) param).getName() + "." + getType(param.getType()))
+                .collect(Collectors.joining(", "));
+
+        code.append(method.getMethodName()).append("(").append(params).append(").");
+        code.append(getType(method.getReturnType())).append(" {\n");
+
+        Map<Instruction, List<String>> labels = new HashMap<>();
+        for (Map.Entry<String, Instruction> label : method.getLabels().entrySet()) {
+            labels.computeIfAbsent(label.getValue(), instruction -> new ArrayList<>()).add(label.getKey());
+        }
+
+        for (Instruction instruction : method.getInstructions()) {
+            for (String label : labels.getOrDefault(instruction, List.of()).stream().sorted().collect(Collectors.toList())) {
+                code.append(spaces(1)).append(label).append(":\n");
+            }
+
+            code.append(spaces(2)).append(getInstruction(instruction)).append(";\n");
+        }
+
+        code.append(spaces(1)).append("}\n");
+    }
+
+    private static String getAccessModifier(AccessModifiers accessModifier) {
+        switch (accessModifier) {
+            case PUBLIC:
+                return "public ";
+            case PRIVATE:
+                return "private ";
+            case PROTECTED:
+                return "protected ";
+            default:
+                return "";
+        }
+    }
+
+    private static String getType(Type type) {
+        switch (type.getTypeOfElement()) {
+            case INT32:
+                return "i32";
+            case BOOLEAN:
+                return "bool";
+            case STRING:
+                return "String";
+            case VOID:
+                return "V";
+            case ARRAYREF:
+                ArrayType arrayType = (ArrayType) type;
+                switch (arrayType.getArrayType()) {
+                    case INT32:
+                        return "array.i32";
+                    case STRING:
+                        return "array.String";
+                    default:
+                        return "array." + arrayType.getElementClass();
+                }
+            case OBJECTREF: case CLASS: case THIS:
+                return ((ClassType) type).getName();
+            default:
+                throw new RuntimeException("Unknown OLLIR type " + type.getTypeOfElement());
+        }
+    }
+
+    private static String getElement(Element element) {
+        if (element.isLiteral()) {
+            LiteralElement literal = (LiteralElement) element;
+            if (element.getType().getTypeOfElement() == ElementType.STRING) {
+                return literal.getLiteral();
+            }
+
+            return literal.getLiteral() + "." + getType(element.getType());
+        }
+
+        Operand operand = (Operand) element;
+        switch (operand.getType().getTypeOfElement()) {
+            case THIS:
+                return "this";
+            case CLASS:
+                return operand.getName();
+            default:
+                break;
+        }
+
+        StringBuilder elementCode = new StringBuilder();
+
+        if (operand.isParameter()) {
+            elementCode.append("$").append(operand.getParamId()).append(".");
+        }
+
+        elementCode.append(operand.getName());
+
+        if (operand instanceof ArrayOperand) {
+            elementCode.append("[");
+            elementCode.append(((ArrayOperand) operand).getIndexOperands().stream()
+                    .map(OllirPrinter::getElement)
+                    .collect(Collectors.joining(", ")));
+            elementCode.append("]");
+        }
+
+        return elementCode.append(".").append(getType(operand.getType())).toString();
+    }
+
+    private static String getOperation(OperationType opType) {
+        switch (opType) {
+            case ADD:
+                return "+";
+            case SUB:
+                return "-";
+            case MUL:
+                return "*";
+            case DIV:
+                return "/";
+            case SHR:
+                return ">>";
+            case SHL:
+                return "<<";
+            case SHRR:
+                return ">>>";
+            case XOR:
+                return "^";
+            case AND:
+                return "&";
+            case OR:
+                return "|";
+            case LTH:
+                return "<";
+            case GTH:
+                return ">";
+            case EQ:
+                return "==";
+            case NEQ:
+                return "!=";
+            case LTE:
+                return "<=";
+            case GTE:
+                return ">=";
+            case ANDB:
+                return "&&";
+            case ORB:
+                return "||";
+            case NOT: case NOTB:
+                return "!";
+            default:
+                throw new RuntimeException("Unknown OLLIR operation " + opType);
+        }
+    }
+
+    private static String getInstruction(Instruction instruction) {
+        switch (instruction.getInstType()) {
+            case ASSIGN:
+                AssignInstruction assign = (AssignInstruction) instruction;
+                return getElement(assign.getDest()) + " :=." + getType(assign.getTypeOfAssign()) + " " +
+                        getInstruction(assign.getRhs());
+            case CALL:
+                return getCall((CallInstruction) instruction);
+            case GOTO:
+                return "goto " + ((GotoInstruction) instruction).getLabel();
+            case BRANCH:
+                CondBranchInstruction branch = (CondBranchInstruction) instruction;
+                return "if (" + getInstruction(branch.getCondition()) + ") goto " + branch.getLabel();
+            case RETURN:
+                ReturnInstruction returnInstruction = (ReturnInstruction) instruction;
+                if (!returnInstruction.hasReturnValue()) {
+                    return "ret.V";
+                }
+                return "ret." + getType(returnInstruction.getReturnType()) + " " +
+                        getElement(returnInstruction.getOperand());
+            case PUTFIELD:
+                PutFieldInstruction putField = (PutFieldInstruction) instruction;
+                return "putfield(" + getElement(putField.getFirstOperand()) + ", " +
+                        getElement(putField.getSecondOperand()) + ", " + getElement(putField.getThirdOperand()) + ").V";
+            case GETFIELD:
+                GetFieldInstruction getField = (GetFieldInstruction) instruction;
+                return "getfield(" + getElement(getField.getFirstOperand()) + ", " +
+                        getElement(getField.getSecondOperand()) + ")." + getType(getField.getFieldType());
+            case BINARYOPER:
+                BinaryOpInstruction binaryOp = (BinaryOpInstruction) instruction;
+                return getElement(binaryOp.getLeftOperand()) + " " +
+                        getOperation(binaryOp.getOperation().getOpType()) + "." +
+                        getType(binaryOp.getOperation().getTypeInfo()) + " " + getElement(binaryOp.getRightOperand());
+            case UNARYOPER:
+                UnaryOpInstruction unaryOp = (UnaryOpInstruction) instruction;
+                return getOperation(unaryOp.getOperation().getOpType()) + "." +
+                        getType(unaryOp.getOperation().getTypeInfo()) + " " + getElement(unaryOp.getOperand());
+            case NOPER:
+                return getElement(((SingleOpInstruction) instruction).getSingleOperand());
+            default:
+                throw new RuntimeException("Unknown OLLIR instruction " + instruction.getInstType());
+        }
+    }
+
+    private static String getCall(CallInstruction call) {
+        List<Element> operands = call.getListOfOperands() != null ? call.getListOfOperands() : List.of();
+        String returnType = getType(call.getReturnType());
+
+        switch (call.getInvocationType()) {
+            case NEW:
+                if (call.getReturnType().getTypeOfElement() == ElementType.ARRAYREF) {
+                    return "new(array, " + operands.stream().map(OllirPrinter::getElement)
+                            .collect(Collectors.joining(", ")) + ")." + returnType;
+                }
+                return "new(" + ((Operand) call.getFirstArg()).getName() + ")." + returnType;
+            case arraylength:
+                return "arraylength(" + getElement(call.getFirstArg()) + ")." + returnType;
+            case ldc:
+                return "ldc(" + getElement(call.getFirstArg()) + ")." + returnType;
+            default:
+                StringBuilder callCode = new StringBuilder();
+                callCode.append(call.getInvocationType()).append("(");
+                callCode.append(getElement(call.getFirstArg()));
+                callCode.append(", ").append(getElement(call.getSecondArg()));
+
+                for (Element operand : operands) {
+                    callCode.append(", ").append(getElement(operand));
+                }
+
+                return callCode.append(").").append(returnType).toString();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package pt.up.fe.comp.optimization;
+
+import org.specs.comp.ollir.*;
+import pt.up.fe.comp.ParallelUtils;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Maps the local variables of each method to as few JVM locals as possible, by coloring the interference graph built
+ * from a {@link LivenessAnalysis}. 'this' and the parameters keep the first registers, and the locals are numbered
+ * after them.
+ */
+public class RegisterAllocator {
+    private final ClassUnit ollirClass;
+    private final int maxRegisters;
+
+    /**
+     * @param maxRegisters the number of JVM locals each method may use, or 0 to use as few as possible
+     */
+    public RegisterAllocator(ClassUnit ollirClass, int maxRegisters) {
+        this.ollirClass = ollirClass;
+        this.maxRegisters = maxRegisters;
+    }
+
+    /**
+     * Updates the registers in the variable tables of all methods.
+     *
+     * @return an error for each method whose variables do not fit in the requested number of registers
+     */
+    public List<Report> allocate() {
+        // Each method only changes the descriptors of its own variable table
+        List<Report> reports = new ArrayList<>();
+        for (List<Report> methodReports : ParallelUtils.mapInOrder(ollirClass.getMethods(), this::allocate)) {
+            reports.addAll(methodReports);
+        }
+
+        return reports;
+    }
+
+    private List<Report> allocate(Method method) {
+        LivenessAnalysis liveness = new LivenessAnalysis(method);
+        List<BitSet> graph = buildInterferenceGraph(liveness);
+
+        int firstRegister = (method.isStaticMethod() ? 0 : 1) + method.getParams().size();
+
+        int numColors = 0;
+        int[] colors = color(graph, numColors);
+        while (colors == null) {
+            colors = color(graph, ++numColors);
+        }
+
+        if (maxRegisters > 0 && firstRegister + numColors > maxRegisters) {
+            return List.of(Report.newError(Stage.OPTIMIZATION, -1, -1, "Could not fit the variables of method "
+                    + method.getMethodName() + " in the " + maxRegisters + " registers requested with -r; the best"
+                    + " allocation found uses " + (firstRegister + numColors), null));
+        }
+
+        List<String> variables = liveness.getVariables();
+        for (int i = 0; i < variables.size(); i++) {
+            method.getVarTable().get(variables.get(i)).setVirtualReg(firstRegister + colors[i]);
+        }
+
+        return List.of();
+    }
+
+    /**
+     * A variable interferes with every variable that is live after an instruction that defines it. The source of a
+     * copy does not interfere with its destination, as both hold the same value, so they may share a register.
+     */
+    private static List<BitSet> buildInterferenceGraph(LivenessAnalysis liveness) {
+        List<BitSet> graph = new ArrayList<>();
+        for (int i = 0; i < liveness.getVariables().size(); i++) {
+            graph.add(new BitSet());
+        }
+
+        List<Instruction> instructions = liveness.getInstructions();
+        for (int i = 0; i < instructions.size(); i++) {
+            BitSet def = liveness.getDef(i);
+            BitSet interfering = (BitSet) liveness.getLiveOut(i).clone();
+
+            int source = getCopySource(instructions.get(i), liveness);
+            if (source >= 0) interfering.clear(source);
+
+            for (int d = def.nextSetBit(0); d >= 0; d = def.nextSetBit(d + 1)) {
+                for (int v = interfering.nextSetBit(0); v >= 0; v = interfering.nextSetBit(v + 1)) {
+                    if (v == d) continue;
+                    graph.get(d).set(v);
+                    graph.get(v).set(d);
+                }
+            }
+        }
+
+        return graph;
+    }
+
+    private static int getCopySource(Instruction instruction, LivenessAnalysis liveness) {
+        String source = OllirInstructionUtils.getVariableName(OllirInstructionUtils.getCopiedElement(instruction));
+        return source != null ? liveness.getVariableIndex(source) : -1;
+    }
+
+    /**
+     * Colors the graph by simplification: nodes with fewer than numColors neighbours are removed until the graph is
+     * empty, and then colored in the reverse order, each with the lowest color its colored neighbours do not have.
+     * When every node left has at least numColors neighbours, the one with the most is removed anyway, as some of its
+     * neighbours may still end up sharing a color.
+     *
+     * @return the color of each node, or null if some node is left without a color
+     */
+    static int[] color(List<BitSet> graph, int numColors) {
+        int numNodes = graph.size();
+        int[] degrees = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            degrees[i] = graph.get(i).cardinality();
+        }
+
+        BitSet removed = new BitSet(numNodes);
+        Deque<Integer> stack = new ArrayDeque<>();
+
+        while (stack.size() < numNodes) {
+            boolean progress = false;
+
+            for (int i = removed.nextClearBit(0); i < numNodes; i = removed.nextClearBit(i + 1)) {
+                if (degrees[i] >= numColors) continue;
+
+                remove(graph, i, degrees, removed, stack);
+                progress = true;
+            }
+
+            if (!progress) {
+                int highest = removed.nextClearBit(0);
+                for (int i = removed.nextClearBit(highest + 1); i < numNodes; i = removed.nextClearBit(i + 1)) {
+                    if (degrees[i] > degrees[highest]) highest = i;
+                }
+
+                remove(graph, highest, degrees, removed, stack);
+            }
+        }
+
+        int[] colors = new int[numNodes];
+        BitSet colored = new BitSet(numNodes);
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+
+            BitSet usedColors = new BitSet(numColors);
+            BitSet neighbours = graph.get(node);
+            for (int n = neighbours.nextSetBit(0); n >= 0; n = neighbours.nextSetBit(n + 1)) {
+                if (colored.get(n)) usedColors.set(colors[n]);
+            }
+
+            colors[node] = usedColors.nextClearBit(0);
+            if (colors[node] >= numColors) return null;
+
+            colored.set(node);
+        }
+
+        return colors;
+    }
+
+    private static void remove(List<BitSet> graph, int node, int[] degrees, BitSet removed, Deque<Integer> stack) {
+        removed.set(node);
+        stack.push(node);
+
+        BitSet neighbours = graph.get(node);
+        for (int n = neighbours.nextSetBit(0); n >= 0; n = neighbours.nextSetBit(n + 1)) {
+            degrees[n]--;
+        }
+    }
+}
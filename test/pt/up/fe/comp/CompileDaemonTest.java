@@ -0,0 +1,140 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+
+package pt.up.fe.comp;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import pt.up.fe.specs.util.SpecsIo;
+
+public class CompileDaemonTest {
+
+    private static final String CODE = "import io;\n"
+            + "class Folded {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        int a;\n"
+            + "        int b;\n"
+            + "        a = 1;\n"
+            + "        b = a + 2;\n"
+            + "        io.println(b);\n"
+            + "    }\n"
+            + "}\n";
+
+    /**
+     * Sends a request to a daemon started for it, and stops the daemon afterwards.
+     *
+     * @return the response, whose last line is the exit status
+     */
+    private static String request(String... fields) throws IOException, InterruptedException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        Thread daemon = new Thread(() -> new CompileDaemon(port).run());
+        daemon.start();
+
+        try {
+            return send(port, String.join("\t", fields));
+        } finally {
+            send(port, "stop");
+            daemon.join(10_000);
+        }
+    }
+
+    private static String send(int port, String request) throws IOException, InterruptedException {
+        // The daemon may not be listening yet
+        for (int attempt = 0; ; attempt++) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                 PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+                 BufferedReader in = new BufferedReader(
+                         new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+
+                out.println(request);
+
+                StringBuilder response = new StringBuilder();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    response.append(line).append('\n');
+                    if (line.startsWith("EXIT ")) break;
+                }
+                return response.toString();
+            } catch (IOException e) {
+                if (attempt == 50) throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static File writeInput(File dir) {
+        File input = new File(dir, "Folded.jmm");
+        SpecsIo.write(input, CODE);
+        return input;
+    }
+
+    @Test
+    public void compilesWithOptimizations() throws IOException, InterruptedException {
+        File dir = Files.createTempDirectory("daemon").toFile();
+        File input = writeInput(dir);
+
+        String response = request("compile", dir.getPath(), "-o", input.getPath());
+        assertTrue(response, response.endsWith("EXIT 0\n"));
+
+        // Only constant propagation makes the printed value a literal
+        String ollirCode = SpecsIo.read(new File(dir, "Folded.ollir"));
+        assertTrue(ollirCode, ollirCode.contains("3.i32"));
+        assertTrue(new File(dir, "Folded.class").isFile());
+    }
+
+    @Test
+    public void compilesWithoutOptimizations() throws IOException, InterruptedException {
+        File dir = Files.createTempDirectory("daemon").toFile();
+        File input = writeInput(dir);
+
+        String response = request("compile", dir.getPath(), input.getPath());
+        assertTrue(response, response.endsWith("EXIT 0\n"));
+
+        String ollirCode = SpecsIo.read(new File(dir, "Folded.ollir"));
+        assertFalse(ollirCode, ollirCode.contains("3.i32"));
+    }
+
+    @Test
+    public void passesRegisterLimit() throws IOException, InterruptedException {
+        File dir = Files.createTempDirectory("daemon").toFile();
+        File input = writeInput(dir);
+
+        // main needs a register for its parameter and one for its locals
+        String response = request("compile", dir.getPath(), "-r=1", input.getPath());
+        assertTrue(response, response.endsWith("EXIT 1\n"));
+        assertTrue(response, response.contains("registers"));
+    }
+
+    @Test
+    public void rejectsRequestWithoutPaths() throws IOException, InterruptedException {
+        String response = request("compile", System.getProperty("user.dir"), "-o");
+        assertTrue(response, response.endsWith("EXIT 2\n"));
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2022 SPeCS.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+
+package pt.up.fe.comp.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+/**
+ * Compares the time taken to convert a large parse tree to JmmNodeImpl through JSON and with the direct copy used by
+ * {@link JmmNode#sanitize()}. Not run as part of the tests.
+ * 
+ * <p>
+ * Usage: SanitizeBenchmark [number of statements] [iterations]
+ */
+public class SanitizeBenchmark {
+
+    public static void main(String[] args) {
+        int numStatements = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        JmmNode root = SanitizeTest.parseRaw(generateCode(numStatements));
+        System.out.println("Nodes: " + countNodes(root));
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 5; i++) {
+            JmmNode.fromJson(root.toJson());
+            root.sanitize();
+        }
+
+        System.out.println("JSON round trip: " + measure(() -> JmmNode.fromJson(root.toJson()), iterations) + " ms");
+        System.out.println("Direct copy: " + measure(root::sanitize, iterations) + " ms");
+    }
+
+    private static double measure(Runnable task, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / iterations;
+    }
+
+    private static String generateCode(int numStatements) {
+        StringBuilder code = new StringBuilder();
+        code.append("class Benchmark {\n");
+        code.append("    public int run(int a) {\n");
+        code.append("        int b;\n");
+        code.append("        int[] c;\n");
+        code.append("        c = new int[10];\n");
+        code.append("        b = 0;\n");
+
+        for (int i = 0; i < numStatements; i++) {
+            code.append("        if (b < a && !(a < ").append(i).append(")) {\n");
+            code.append("            b = b + c[").append(i % 10).append("] * (a - ").append(i).append(");\n");
+            code.append("        } else {\n");
+            code.append("            c[").append(i % 10).append("] = this.run(b / 2);\n");
+            code.append("        }\n");
+        }
+
+        code.append("        return b;\n");
+        code.append("    }\n");
+        code.append("}\n");
+        return code.toString();
+    }
+
+    private static int countNodes(JmmNode node) {
+        int count = 1;
+        for (JmmNode child : node.getChildren()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+}
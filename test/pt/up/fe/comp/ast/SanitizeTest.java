@@ -0,0 +1,80 @@
+/**
+ * Copyright 2022 SPeCS.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+
+package pt.up.fe.comp.ast;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import pt.up.fe.comp.JmmGrammarParser;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.specs.util.SpecsIo;
+import pt.up.fe.specs.util.SpecsSystem;
+
+public class SanitizeTest {
+
+    static JmmNode parseRaw(String code) {
+        JmmGrammarParser parser = new JmmGrammarParser(SpecsIo.toInputStream(code));
+        SpecsSystem.invoke(parser, "Program");
+        JmmNode root = (JmmNode) parser.rootNode();
+        new LineColAnnotatorVisitor().visit(root);
+        return root;
+    }
+
+    private static void sameAsJson(String resource) {
+        JmmNode root = parseRaw(SpecsIo.getResource(resource));
+
+        String expected = JmmNode.fromJson(root.toJson()).toJson();
+        JmmNode copy = root.sanitize();
+
+        assertTrue(copy instanceof JmmNodeImpl);
+        assertEquals(expected, copy.toJson());
+        checkParents(copy);
+    }
+
+    private static void checkParents(JmmNode node) {
+        for (JmmNode child : node.getChildren()) {
+            assertSame(node, child.getJmmParent());
+            checkParents(child);
+        }
+    }
+
+    @Test
+    public void helloWorld() {
+        sameAsJson("fixtures/public/HelloWorld.jmm");
+    }
+
+    @Test
+    public void lazysort() {
+        sameAsJson("fixtures/public/Lazysort.jmm");
+    }
+
+    @Test
+    public void ticTacToe() {
+        sameAsJson("fixtures/public/TicTacToe.jmm");
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        JmmNode root = parseRaw(SpecsIo.getResource("fixtures/public/HelloWorld.jmm"));
+        JmmNode copy = root.sanitize();
+
+        copy.getJmmChild(0).put("name", "Changed");
+        copy.removeJmmChild(0);
+
+        assertEquals(JmmNode.fromJson(root.toJson()).toJson(), root.sanitize().toJson());
+        assertNotEquals(root.getNumChildren(), copy.getNumChildren());
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2022 SPeCS.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+
+package pt.up.fe.comp.ast;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import pt.up.fe.comp.jmm.ast.AJmmVisitor;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+
+/**
+ * Measures the throughput of {@link AJmmVisitor} on a large synthetic AST, with visits dispatched by kind id, against
+ * the same visitor dispatching through a map keyed by the kind name. Not run as part of the tests.
+ * 
+ * <p>
+ * Usage: VisitorBenchmark [number of nodes] [iterations]
+ */
+public class VisitorBenchmark {
+
+    private static final List<String> KINDS = List.of("Statement", "IDAssignment", "ArrayAssignment", "BinOp",
+            "UnaryOp", "ArrayExpression", "AccessExpression", "CallExpression", "MemberArgs", "Literal", "ID", "_New",
+            "ParenthesisExpression", "IfStatement", "WhileStatement", "ScopeStatement");
+
+    private static class CountingVisitor extends AJmmVisitor<Integer, Integer> {
+        CountingVisitor() {
+            for (String kind : KINDS) {
+                addVisit(kind, this::countVisit);
+            }
+            setDefaultVisit(this::countVisit);
+        }
+
+        protected Integer countVisit(JmmNode node, Integer depth) {
+            int count = 1;
+            for (int i = 0; i < node.getNumChildren(); i++) {
+                count += visit(node.getJmmChild(i), depth + 1);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Dispatches by looking up the kind name in a map for every node, as visitors did before kind ids.
+     */
+    private static class MapDispatchVisitor extends CountingVisitor {
+        private final Map<String, BiFunction<JmmNode, Integer, Integer>> visits = new HashMap<>();
+
+        MapDispatchVisitor() {
+            for (String kind : KINDS) {
+                visits.put(kind, this::countVisit);
+            }
+        }
+
+        @Override
+        public Integer visit(JmmNode jmmNode, Integer data) {
+            var visit = visits.get(jmmNode.getKind());
+            return visit != null ? visit.apply(jmmNode, data) : countVisit(jmmNode, data);
+        }
+    }
+
+    public static void main(String[] args) {
+        int numNodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        JmmNode root = generateTree(numNodes, new Random(42));
+
+        var arrayDispatch = new CountingVisitor();
+        var mapDispatch = new MapDispatchVisitor();
+
+        // Warm up both visitors before measuring
+        for (int i = 0; i < 5; i++) {
+            arrayDispatch.visit(root, 0);
+            mapDispatch.visit(root, 0);
+        }
+
+        System.out.println("Nodes: " + arrayDispatch.visit(root, 0));
+        System.out.println("Map dispatch: " + measure(mapDispatch, root, numNodes, iterations) + " ns/node");
+        System.out.println("Kind id dispatch: " + measure(arrayDispatch, root, numNodes, iterations) + " ns/node");
+    }
+
+    private static double measure(AJmmVisitor<Integer, Integer> visitor, JmmNode root, int numNodes, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            visitor.visit(root, 0);
+        }
+        return (double) (System.nanoTime() - start) / iterations / numNodes;
+    }
+
+    /**
+     * Builds a tree with the given number of nodes, where each node has up to three children and a random kind.
+     */
+    private static JmmNode generateTree(int numNodes, Random random) {
+        JmmNodeImpl[] nodes = new JmmNodeImpl[numNodes];
+        nodes[0] = new JmmNodeImpl("MethodBody");
+
+        for (int i = 1; i < numNodes; i++) {
+            nodes[i] = new JmmNodeImpl(KINDS.get(random.nextInt(KINDS.size())));
+            nodes[(i - 1) / 3].add(nodes[i]);
+        }
+
+        return nodes[0];
+    }
+}
@@ -0,0 +1,71 @@
+package pt.up.fe.comp.backend;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.OllirErrorException;
+
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.jasmin.JasminUtils;
+import pt.up.fe.specs.util.SpecsIo;
+
+/**
+ * Measures the time to go from the OLLIR classes of the Jasmin fixtures to class files, comparing {@link Jasmin} code
+ * assembled in memory with the class files {@link ClassFileWriter} writes directly. Not run as part of the tests.
+ *
+ * <p>
+ * Usage: ClassFileBenchmark [iterations]
+ */
+public class ClassFileBenchmark {
+
+    public static void main(String[] args) throws OllirErrorException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        List<ClassUnit> ollirClasses = new ArrayList<>();
+        for (File fixture : ClassFileWriterTest.getFixtures()) {
+            ollirClasses.add(TestUtils.optimize(SpecsIo.read(fixture)).getOllirClass());
+        }
+
+        System.out.println("Classes: " + ollirClasses.size());
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 5; i++) {
+            viaJasmin(ollirClasses);
+            direct(ollirClasses);
+        }
+
+        System.out.println("Jasmin code, assembled: " + measure(() -> viaJasmin(ollirClasses), iterations) + " ms");
+        System.out.println("Class file writer: " + measure(() -> direct(ollirClasses), iterations) + " ms");
+    }
+
+    private static double measure(Runnable task, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / iterations;
+    }
+
+    private static void viaJasmin(List<ClassUnit> ollirClasses) {
+        try {
+            for (ClassUnit ollirClass : ollirClasses) {
+                String jasminCode = new Jasmin().build(ollirClass);
+                JasminUtils.assemble(jasminCode, ollirClass.getClassName() + ".j");
+            }
+        } catch (OllirErrorException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void direct(List<ClassUnit> ollirClasses) {
+        try {
+            for (ClassUnit ollirClass : ollirClasses) {
+                new ClassFileWriter().build(ollirClass);
+            }
+        } catch (OllirErrorException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+
+package pt.up.fe.comp.backend;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.specs.util.SpecsIo;
+import pt.up.fe.specs.util.system.ProcessOutputAsString;
+
+/**
+ * Runs the Jasmin fixtures compiled by both backends, which must behave the same.
+ */
+public class ClassFileWriterTest {
+
+    static final File FIXTURES = new File("test/fixtures/public/cpf/4_jasmin");
+
+    static List<File> getFixtures() {
+        List<File> fixtures = SpecsIo.getFilesRecursive(FIXTURES, "jmm");
+        fixtures.sort(null);
+        assertFalse(fixtures.isEmpty());
+        return fixtures;
+    }
+
+    private static void sameOutput(File fixture, String optimize) {
+        String code = SpecsIo.read(fixture);
+
+        JasminResult jasmin = TestUtils.backend(code, Map.of("backend", "jasmin", "optimize", optimize));
+        JasminResult classFile = TestUtils.backend(code, Map.of("backend", "classfile", "optimize", optimize));
+        TestUtils.noErrors(classFile.getReports());
+        assertNull(classFile.getJasminCode());
+
+        ProcessOutputAsString expected = run(jasmin);
+        ProcessOutputAsString actual = run(classFile);
+
+        String message = fixture.getPath() + " (optimize=" + optimize + ")";
+        assertEquals(message, expected.getReturnValue(), actual.getReturnValue());
+        assertEquals(message, expected.getOutput(), actual.getOutput());
+    }
+
+    private static ProcessOutputAsString run(JasminResult result) {
+        return result.runWithFullOutput(List.of(), List.of(TestUtils.getLibsClasspath()));
+    }
+
+    @Test
+    public void sameOutputAsJasmin() {
+        for (File fixture : getFixtures()) {
+            sameOutput(fixture, "false");
+        }
+    }
+
+    @Test
+    public void sameOutputAsJasminOptimized() {
+        for (File fixture : getFixtures()) {
+            sameOutput(fixture, "true");
+        }
+    }
+}
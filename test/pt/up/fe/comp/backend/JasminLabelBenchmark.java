@@ -0,0 +1,123 @@
+package pt.up.fe.comp.backend;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Instruction;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.OllirErrorException;
+
+import pt.up.fe.comp.TestUtils;
+
+/**
+ * Measures label placement in {@link Jasmin} on a synthetic method with many branches, comparing the scan of every
+ * label for each instruction that was used before with the instruction to labels index now built once per method.
+ * Not run as part of the tests.
+ *
+ * <p>
+ * Usage: JasminLabelBenchmark [number of branches] [iterations]
+ */
+public class JasminLabelBenchmark {
+
+    public static void main(String[] args) throws OllirErrorException {
+        int numBranches = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        ClassUnit ollirClass = TestUtils.optimize(generateCode(numBranches)).getOllirClass();
+        Method method = ollirClass.getMethods().stream()
+                .filter(m -> m.getMethodName().equals("run"))
+                .findFirst()
+                .orElseThrow();
+
+        System.out.println("Instructions: " + method.getInstructions().size());
+        System.out.println("Labels: " + method.getLabels().size());
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 5; i++) {
+            placeLabelsByScan(method);
+            placeLabelsByIndex(method);
+        }
+
+        System.out.println("Scan of all labels: " + measure(() -> placeLabelsByScan(method), iterations) + " ms");
+        System.out.println("Label index: " + measure(() -> placeLabelsByIndex(method), iterations) + " ms");
+        System.out.println("Whole class: " + measure(() -> build(ollirClass), iterations) + " ms");
+    }
+
+    private static double measure(Runnable task, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / iterations;
+    }
+
+    private static void build(ClassUnit ollirClass) {
+        try {
+            new Jasmin().build(ollirClass);
+        } catch (OllirErrorException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String placeLabelsByScan(Method method) {
+        StringBuilder code = new StringBuilder();
+        Map<String, Instruction> labels = method.getLabels();
+
+        for (Instruction instruction : method.getInstructions()) {
+            for (String label : labels.keySet()) {
+                if (labels.get(label) == instruction) code.append(label).append(":\n");
+            }
+        }
+
+        return code.toString();
+    }
+
+    private static String placeLabelsByIndex(Method method) {
+        StringBuilder code = new StringBuilder();
+        Map<Instruction, List<String>> labels = new IdentityHashMap<>();
+
+        for (Map.Entry<String, Instruction> label : method.getLabels().entrySet()) {
+            labels.computeIfAbsent(label.getValue(), instruction -> new ArrayList<>()).add(label.getKey());
+        }
+
+        for (Instruction instruction : method.getInstructions()) {
+            for (String label : labels.getOrDefault(instruction, List.of())) {
+                code.append(label).append(":\n");
+            }
+        }
+
+        return code.toString();
+    }
+
+    /**
+     * A method shaped like a state machine, with one if per state and a loop around them.
+     */
+    private static String generateCode(int numBranches) {
+        StringBuilder code = new StringBuilder();
+        code.append("class Benchmark {\n");
+        code.append("    public int run(int a) {\n");
+        code.append("        int state;\n");
+        code.append("        int acc;\n");
+        code.append("        state = 0;\n");
+        code.append("        acc = 0;\n");
+        code.append("        while (state < a) {\n");
+
+        for (int i = 0; i < numBranches; i++) {
+            code.append("            if (state < ").append(i + 1).append(") {\n");
+            code.append("                acc = acc + ").append(i).append(";\n");
+            code.append("            } else {\n");
+            code.append("                acc = acc - 1;\n");
+            code.append("            }\n");
+        }
+
+        code.append("            state = state + 1;\n");
+        code.append("        }\n");
+        code.append("        return acc;\n");
+        code.append("    }\n");
+        code.append("}\n");
+        return code.toString();
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+package pt.up.fe.comp.backend;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+
+public class JasminTest {
+
+    /**
+     * @return the lines printed by the main method of the OLLIR class compiled with Jasmin
+     */
+    private static List<String> run(String ollirCode) {
+        JasminResult result = TestUtils.backend(new OllirResult(ollirCode, Map.of("backend", "jasmin")));
+        TestUtils.noErrors(result.getReports());
+
+        return result.run(List.of(), List.of(TestUtils.getLibsClasspath())).lines().toList();
+    }
+
+    @Test
+    public void branchOnSingleAndNegatedOperands() {
+        String code = "import io;\n"
+                + "Branches {\n"
+                + "    .construct Branches().V {\n"
+                + "        invokespecial(this, \"<init>\").V;\n"
+                + "    }\n"
+                + "    .method public static main(args.array.String).V {\n"
+                + "        t.bool :=.bool 1.bool;\n"
+                + "        f.bool :=.bool 0.bool;\n"
+                + "        if (!.bool f.bool) goto NotFalse;\n"
+                + "        invokestatic(io, \"println\", 1.i32).V;\n"
+                + "    NotFalse:\n"
+                + "        if (!.bool t.bool) goto NotTrue;\n"
+                + "        invokestatic(io, \"println\", 2.i32).V;\n"
+                + "    NotTrue:\n"
+                + "        if (t.bool) goto True;\n"
+                + "        invokestatic(io, \"println\", 3.i32).V;\n"
+                + "    True:\n"
+                + "        invokestatic(io, \"println\", 4.i32).V;\n"
+                + "        ret.V;\n"
+                + "    }\n"
+                + "}\n";
+
+        assertEquals(List.of("2", "4"), run(code));
+    }
+
+    @Test
+    public void incrementsOnlyByLiterals() {
+        String code = "import io;\n"
+                + "Increments {\n"
+                + "    .construct Increments().V {\n"
+                + "        invokespecial(this, \"<init>\").V;\n"
+                + "    }\n"
+                + "    .method public static main(args.array.String).V {\n"
+                + "        a.i32 :=.i32 2.i32;\n"
+                // Not an increment, as a is subtracted
+                + "        a.i32 :=.i32 5.i32 -.i32 a.i32;\n"
+                + "        invokestatic(io, \"println\", a.i32).V;\n"
+                + "        a.i32 :=.i32 a.i32 -.i32 -3.i32;\n"
+                + "        invokestatic(io, \"println\", a.i32).V;\n"
+                + "        a.i32 :=.i32 1.i32 +.i32 a.i32;\n"
+                + "        invokestatic(io, \"println\", a.i32).V;\n"
+                + "        a.i32 :=.i32 a.i32 -.i32 2.i32;\n"
+                + "        invokestatic(io, \"println\", a.i32).V;\n"
+                + "        ret.V;\n"
+                + "    }\n"
+                + "}\n";
+
+        assertEquals(List.of("3", "6", "7", "5"), run(code));
+    }
+}
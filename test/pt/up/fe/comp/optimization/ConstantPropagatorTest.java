@@ -0,0 +1,107 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+
+
+package pt.up.fe.comp.optimization;
+
+import static org.junit.Assert.*;
+import static pt.up.fe.comp.optimization.OllirTestUtils.getMethodCode;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+
+public class ConstantPropagatorTest {
+
+    private static final String CODE = "class Constants {\n"
+            + "    int f;\n"
+            + "    public int merge(boolean c) {\n"
+            + "        int a;\n"
+            + "        int b;\n"
+            + "        if (c) {\n"
+            + "            a = 1;\n"
+            + "            b = 2;\n"
+            + "        } else {\n"
+            + "            a = 1;\n"
+            + "            b = 3;\n"
+            + "        }\n"
+            + "        return a * b;\n"
+            + "    }\n"
+            + "    public int loop(int n) {\n"
+            + "        int i;\n"
+            + "        int k;\n"
+            + "        i = 0;\n"
+            + "        k = 5;\n"
+            + "        while (i < n) {\n"
+            + "            i = i + k;\n"
+            + "        }\n"
+            + "        return i;\n"
+            + "    }\n"
+            + "    public int field() {\n"
+            + "        f = 1;\n"
+            + "        return f;\n"
+            + "    }\n"
+            + "    public int divide() {\n"
+            + "        int z;\n"
+            + "        z = 0;\n"
+            + "        return 4 / z;\n"
+            + "    }\n"
+            + "    public static void main(String[] args) {\n"
+            + "    }\n"
+            + "}\n";
+
+    /**
+     * @return the OLLIR code of the method, generated from the AST after the propagation
+     */
+    private static String propagate(String methodName) {
+        JmmOptimizer optimizer = new JmmOptimizer();
+        JmmSemanticsResult semanticsResult = TestUtils.analyse(CODE, Map.of("optimize", "true"));
+        return getMethodCode(optimizer.toOllir(optimizer.optimize(semanticsResult)).getOllirClass(), methodName);
+    }
+
+    @Test
+    public void mergesBranches() {
+        String code = propagate("merge");
+
+        // a is 1 after both branches, while b depends on the branch taken
+        assertTrue(code, code.contains(":=.i32 1.i32 *.i32 b.i32;"));
+    }
+
+    @Test
+    public void keepsVariablesAssignedInLoop() {
+        String code = propagate("loop");
+
+        // i changes on every iteration, so it is read in the condition, the body and after the loop
+        assertTrue(code, code.contains("i.i32 <.i32 $1.n.i32;"));
+        assertTrue(code, code.contains("i.i32 :=.i32 i.i32 +.i32 5.i32;"));
+        assertTrue(code, code.contains("ret.i32 i.i32;"));
+    }
+
+    @Test
+    public void keepsFields() {
+        String code = propagate("field");
+
+        // A field may be changed by other methods, so it is read again after its assignment
+        assertTrue(code, code.contains("putfield(this, f.i32, 1.i32).V;"));
+        assertTrue(code, code.contains("getfield(this, f.i32).i32;"));
+    }
+
+    @Test
+    public void keepsDivisionByZero() {
+        String code = propagate("divide");
+        assertTrue(code, code.contains("4.i32 /.i32 0.i32;"));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+package pt.up.fe.comp.optimization;
+
+import static org.junit.Assert.*;
+import static pt.up.fe.comp.optimization.OllirTestUtils.getMethod;
+import static pt.up.fe.comp.optimization.OllirTestUtils.parse;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ControlFlowGraphTest {
+
+    /**
+     * Sums the numbers below n. The instructions are numbered in the comments.
+     */
+    static final String LOOP = "Loop {\n"
+            + "    .construct Loop().V {\n"
+            + "        invokespecial(this, \"<init>\").V;\n"
+            + "    }\n"
+            + "    .method public sum(n.i32).i32 {\n"
+            + "        i.i32 :=.i32 0.i32;\n" // 0
+            + "        s.i32 :=.i32 0.i32;\n" // 1
+            + "    Loop:\n"
+            + "        c.bool :=.bool i.i32 <.i32 $1.n.i32;\n" // 2
+            + "        if (c.bool) goto Body;\n" // 3
+            + "        goto End;\n" // 4
+            + "    Body:\n"
+            + "        s.i32 :=.i32 s.i32 +.i32 i.i32;\n" // 5
+            + "        i.i32 :=.i32 i.i32 +.i32 1.i32;\n" // 6
+            + "        goto Loop;\n" // 7
+            + "    End:\n"
+            + "        ret.i32 s.i32;\n" // 8
+            + "    }\n"
+            + "}\n";
+
+    static BitSet bits(int... indices) {
+        BitSet bits = new BitSet();
+        for (int index : indices) {
+            bits.set(index);
+        }
+        return bits;
+    }
+
+    @Test
+    public void loopEdges() {
+        ControlFlowGraph cfg = new ControlFlowGraph(getMethod(parse(LOOP), "sum"));
+
+        assertEquals(9, cfg.size());
+        assertEquals(List.of(1), cfg.getSuccessors(0));
+        assertEquals(List.of(5, 4), cfg.getSuccessors(3));
+        assertEquals(List.of(8), cfg.getSuccessors(4));
+        assertEquals(List.of(2), cfg.getSuccessors(7));
+        assertEquals(List.of(), cfg.getSuccessors(8));
+
+        // The loop header is reached from before the loop and from the end of its body
+        assertEquals(List.of(1, 7), cfg.getPredecessors(2));
+        assertEquals(List.of(3), cfg.getPredecessors(5));
+    }
+
+    @Test
+    public void exits() {
+        ControlFlowGraph cfg = new ControlFlowGraph(getMethod(parse(LOOP), "sum"));
+
+        for (int i = 0; i < cfg.size(); i++) {
+            assertEquals(String.valueOf(i), i == 8, cfg.isExit(i));
+        }
+    }
+
+    @Test
+    public void codeAfterReturnIsUnreachable() {
+        String code = "Dead {\n"
+                + "    .construct Dead().V {\n"
+                + "        invokespecial(this, \"<init>\").V;\n"
+                + "    }\n"
+                + "    .method public get().i32 {\n"
+                + "        a.i32 :=.i32 1.i32;\n"
+                + "        ret.i32 a.i32;\n"
+                + "        a.i32 :=.i32 2.i32;\n"
+                + "        ret.i32 a.i32;\n"
+                + "    }\n"
+                + "}\n";
+
+        ControlFlowGraph cfg = new ControlFlowGraph(getMethod(parse(code), "get"));
+
+        assertEquals(List.of(), cfg.getSuccessors(1));
+        assertTrue(cfg.isExit(1));
+        assertEquals(List.of(), cfg.getPredecessors(2));
+
+        assertEquals(bits(0, 1), cfg.getReachable());
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+package pt.up.fe.comp.optimization;
+
+import static org.junit.Assert.*;
+import static pt.up.fe.comp.optimization.OllirTestUtils.getMethodCode;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.specs.comp.ollir.Method;
+
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+
+/**
+ * Copies whose source is assigned again must not be propagated past the assignment.
+ */
+public class CopyPropagationPassTest {
+
+    private static final String CODE = "import io;\n"
+            + "Copies {\n"
+            + "    .construct Copies().V {\n"
+            + "        invokespecial(this, \"<init>\").V;\n"
+            + "    }\n"
+            // The source is assigned after the copy in every iteration
+            + "    .method public static inLoop().V {\n"
+            + "        x.i32 :=.i32 0.i32;\n"
+            + "        i.i32 :=.i32 0.i32;\n"
+            + "    Loop:\n"
+            + "        y.i32 :=.i32 x.i32;\n"
+            + "        x.i32 :=.i32 x.i32 +.i32 1.i32;\n"
+            + "        invokestatic(io, \"println\", y.i32).V;\n"
+            + "        i.i32 :=.i32 i.i32 +.i32 1.i32;\n"
+            + "        if (i.i32 <.bool 3.i32) goto Loop;\n"
+            + "        ret.V;\n"
+            + "    }\n"
+            // The copy is available when entering the loop, but not through the back edge
+            + "    .method public static beforeLoop().V {\n"
+            + "        x.i32 :=.i32 0.i32;\n"
+            + "        y.i32 :=.i32 x.i32;\n"
+            + "    Loop:\n"
+            + "        invokestatic(io, \"println\", y.i32).V;\n"
+            + "        x.i32 :=.i32 x.i32 +.i32 1.i32;\n"
+            + "        if (x.i32 <.bool 3.i32) goto Loop;\n"
+            + "        ret.V;\n"
+            + "    }\n"
+            + "    .method public static swap().V {\n"
+            + "        a.i32 :=.i32 1.i32;\n"
+            + "        b.i32 :=.i32 2.i32;\n"
+            + "        t.i32 :=.i32 a.i32;\n"
+            + "        a.i32 :=.i32 b.i32;\n"
+            + "        b.i32 :=.i32 t.i32;\n"
+            + "        invokestatic(io, \"println\", a.i32).V;\n"
+            + "        invokestatic(io, \"println\", b.i32).V;\n"
+            + "        ret.V;\n"
+            + "    }\n"
+            // The comparison is only assigned to be branched on
+            + "    .method public static less(a.i32, b.i32).i32 {\n"
+            + "        c.bool :=.bool $0.a.i32 <.bool $1.b.i32;\n"
+            + "        if (c.bool) goto Less;\n"
+            + "        ret.i32 0.i32;\n"
+            + "    Less:\n"
+            + "        ret.i32 1.i32;\n"
+            + "    }\n"
+            + "    .method public static main(args.array.String).V {\n"
+            + "        invokestatic(Copies, \"inLoop\").V;\n"
+            + "        invokestatic(Copies, \"beforeLoop\").V;\n"
+            + "        invokestatic(Copies, \"swap\").V;\n"
+            + "        ret.V;\n"
+            + "    }\n"
+            + "}\n";
+
+    private static OllirResult propagate() {
+        OllirResult ollirResult = new OllirResult(CODE, Map.of());
+        CopyPropagationPass pass = new CopyPropagationPass();
+
+        // Repeated like the pass manager does, as removing the dead copies makes others available
+        for (Method method : ollirResult.getOllirClass().getMethods()) {
+            boolean changed = true;
+            for (int round = 0; changed && round < 10; round++) {
+                changed = pass.run(method);
+            }
+        }
+
+        return ollirResult;
+    }
+
+    private static List<String> run(OllirResult ollirResult) {
+        JasminResult jasminResult = TestUtils.backend(ollirResult);
+        TestUtils.noErrors(jasminResult.getReports());
+
+        return jasminResult.run(List.of(), List.of(TestUtils.getLibsClasspath())).lines().toList();
+    }
+
+    @Test
+    public void sourceAssignedInLoop() {
+        String code = getMethodCode(propagate().getOllirClass(), "inLoop");
+        assertTrue(code, code.contains("invokestatic(io, \"println\", y.i32).V;"));
+    }
+
+    @Test
+    public void sourceAssignedAfterLoopEntry() {
+        String code = getMethodCode(propagate().getOllirClass(), "beforeLoop");
+        assertTrue(code, code.contains("invokestatic(io, \"println\", y.i32).V;"));
+    }
+
+    @Test
+    public void swapThroughTemporary() {
+        String code = getMethodCode(propagate().getOllirClass(), "swap");
+
+        // The prints read the original variables the other way around, and the swap itself is gone
+        int printB = code.indexOf("invokestatic(io, \"println\", b.i32).V;");
+        int printA = code.indexOf("invokestatic(io, \"println\", a.i32).V;");
+        assertTrue(code, printB >= 0 && printA > printB);
+        assertFalse(code, code.contains("t.i32"));
+    }
+
+    @Test
+    public void comparisonMovedIntoBranch() {
+        String code = getMethodCode(propagate().getOllirClass(), "less");
+
+        assertTrue(code, code.contains("if ($0.a.i32 <.bool $1.b.i32) goto Less;"));
+        assertFalse(code, code.contains("c.bool"));
+    }
+
+    @Test
+    public void sameOutput() {
+        List<String> expected = List.of("0", "1", "2", "0", "0", "0", "2", "1");
+
+        assertEquals(expected, run(new OllirResult(CODE, Map.of())));
+        assertEquals(expected, run(propagate()));
+    }
+}
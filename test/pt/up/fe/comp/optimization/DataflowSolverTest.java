@@ -0,0 +1,115 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+package pt.up.fe.comp.optimization;
+
+import static org.junit.Assert.*;
+import static pt.up.fe.comp.optimization.ControlFlowGraphTest.bits;
+import static pt.up.fe.comp.optimization.OllirTestUtils.getMethod;
+import static pt.up.fe.comp.optimization.OllirTestUtils.parse;
+
+import org.junit.Test;
+
+import pt.up.fe.comp.optimization.DataflowSolver.Direction;
+import pt.up.fe.comp.optimization.DataflowSolver.Meet;
+
+/**
+ * Solves problems over {@link ControlFlowGraphTest#LOOP}, whose values must flow around the loop.
+ */
+public class DataflowSolverTest {
+    private static final int I = 0;
+    private static final int S = 1;
+    private static final int C = 2;
+
+    private static ControlFlowGraph getLoop() {
+        return new ControlFlowGraph(getMethod(parse(ControlFlowGraphTest.LOOP), "sum"));
+    }
+
+    @Test
+    public void reachingDefinitions() {
+        // The facts are the instructions that assign i and s
+        DataflowSolver solver = new DataflowSolver(getLoop(), Direction.FORWARD, Meet.UNION, 9);
+        solver.getGen(0).set(0);
+        solver.getKill(0).set(6);
+        solver.getGen(1).set(1);
+        solver.getKill(1).set(5);
+        solver.getGen(5).set(5);
+        solver.getKill(5).set(1);
+        solver.getGen(6).set(6);
+        solver.getKill(6).set(0);
+        solver.solve();
+
+        assertEquals(bits(), solver.getBefore(0));
+        assertEquals(bits(0, 1), solver.getAfter(1));
+
+        // The definitions in the body reach the loop header through the back edge
+        assertEquals(bits(0, 1, 5, 6), solver.getBefore(2));
+        assertEquals(bits(0, 5, 6), solver.getAfter(5));
+        assertEquals(bits(5, 6), solver.getAfter(6));
+        assertEquals(bits(0, 1, 5, 6), solver.getBefore(8));
+    }
+
+    @Test
+    public void definitelyAssigned() {
+        DataflowSolver solver = new DataflowSolver(getLoop(), Direction.FORWARD, Meet.INTERSECTION, 3);
+        solver.getGen(0).set(I);
+        solver.getGen(1).set(S);
+        solver.getGen(2).set(C);
+        solver.getGen(5).set(S);
+        solver.getGen(6).set(I);
+        solver.solve();
+
+        // The method entry has nothing assigned, and the back edge must not remove what is assigned before the loop
+        assertEquals(bits(), solver.getBefore(0));
+        assertEquals(bits(I), solver.getBefore(1));
+        assertEquals(bits(I, S), solver.getBefore(2));
+        assertEquals(bits(I, S, C), solver.getBefore(8));
+    }
+
+    @Test
+    public void liveVariables() {
+        // A variable is live before an instruction that uses it, and dead before one that only assigns it
+        DataflowSolver solver = new DataflowSolver(getLoop(), Direction.BACKWARD, Meet.UNION, 3);
+        solver.getKill(0).set(I);
+        solver.getKill(1).set(S);
+        solver.getGen(2).set(I);
+        solver.getKill(2).set(C);
+        solver.getGen(3).set(C);
+        solver.getGen(5).set(I);
+        solver.getGen(5).set(S);
+        solver.getKill(5).set(S);
+        solver.getGen(6).set(I);
+        solver.getKill(6).set(I);
+        solver.getGen(8).set(S);
+        solver.solve();
+
+        assertEquals(bits(), solver.getBefore(0));
+        assertEquals(bits(I), solver.getBefore(1));
+        assertEquals(bits(I, S, C), solver.getAfter(2));
+        assertEquals(bits(I, S), solver.getAfter(3));
+
+        // Both stay live at the end of the body, as the loop header reads them again
+        assertEquals(bits(I, S), solver.getAfter(6));
+        assertEquals(bits(S), solver.getBefore(4));
+        assertEquals(bits(), solver.getAfter(8));
+    }
+
+    @Test
+    public void boundaryFlowsIntoExits() {
+        DataflowSolver solver = new DataflowSolver(getLoop(), Direction.BACKWARD, Meet.UNION, 3);
+        solver.setBoundary(bits(C));
+        solver.solve();
+
+        assertEquals(bits(C), solver.getAfter(8));
+        assertEquals(bits(C), solver.getBefore(0));
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+package pt.up.fe.comp.optimization;
+
+import static org.junit.Assert.*;
+import static pt.up.fe.comp.optimization.OllirTestUtils.getMethod;
+import static pt.up.fe.comp.optimization.OllirTestUtils.getMethodCode;
+import static pt.up.fe.comp.optimization.OllirTestUtils.parse;
+
+import org.junit.Test;
+import org.specs.comp.ollir.ClassUnit;
+
+public class DeadCodeEliminationPassTest {
+
+    private static final String CODE = "import io;\n"
+            + "Effects {\n"
+            + "    .field private f.i32;\n"
+            + "    .construct Effects().V {\n"
+            + "        invokespecial(this, \"<init>\").V;\n"
+            + "    }\n"
+            + "    .method public run(arr.array.i32).i32 {\n"
+            + "        dead.i32 :=.i32 1.i32;\n"
+            + "        result.i32 :=.i32 invokevirtual(this, \"get\").i32;\n"
+            + "        putfield(this, f.i32, 2.i32).V;\n"
+            + "        i.i32 :=.i32 0.i32;\n"
+            + "        size.i32 :=.i32 1.i32;\n"
+            + "        local.array.i32 :=.array.i32 new(array, size.i32).array.i32;\n"
+            + "        local[i.i32].i32 :=.i32 3.i32;\n"
+            + "        $1.arr[i.i32].i32 :=.i32 4.i32;\n"
+            + "        invokestatic(io, \"println\", 5.i32).V;\n"
+            + "        ret.i32 0.i32;\n"
+            + "        after.i32 :=.i32 6.i32;\n"
+            + "        invokestatic(io, \"println\", after.i32).V;\n"
+            + "        ret.i32 after.i32;\n"
+            + "    }\n"
+            + "    .method public get().i32 {\n"
+            + "        ret.i32 1.i32;\n"
+            + "    }\n"
+            + "}\n";
+
+    /**
+     * @return the OLLIR code of the method after the pass
+     */
+    private static String eliminate(String ollirCode, String methodName) {
+        ClassUnit ollirClass = parse(ollirCode);
+        new DeadCodeEliminationPass().run(getMethod(ollirClass, methodName));
+
+        return getMethodCode(ollirClass, methodName);
+    }
+
+    @Test
+    public void keepsSideEffects() {
+        String code = eliminate(CODE, "run");
+
+        // The unused result of the call is dropped, but the call is not
+        assertTrue(code, code.contains("invokevirtual(this, \"get\").i32;"));
+        assertFalse(code, code.contains("result.i32"));
+
+        assertTrue(code, code.contains("putfield(this, f.i32, 2.i32).V;"));
+        assertTrue(code, code.contains("invokestatic(io, \"println\", 5.i32).V;"));
+        assertTrue(code, code.contains("arr[i.i32].i32 :=.i32 4.i32;"));
+
+        // An array element is not a variable, so its store stays even if the array is never read
+        assertTrue(code, code.contains("local[i.i32].i32 :=.i32 3.i32;"));
+    }
+
+    @Test
+    public void removesDeadStores() {
+        String code = eliminate(CODE, "run");
+        assertFalse(code, code.contains("dead.i32"));
+    }
+
+    @Test
+    public void removesCodeAfterReturn() {
+        String code = eliminate(CODE, "run");
+
+        assertTrue(code, code.contains("ret.i32 0.i32;"));
+        assertFalse(code, code.contains("after.i32"));
+        assertFalse(code, code.contains("6.i32"));
+    }
+
+    @Test
+    public void removesStoreOverwrittenInLoop() {
+        String code = "Loop {\n"
+                + "    .construct Loop().V {\n"
+                + "        invokespecial(this, \"<init>\").V;\n"
+                + "    }\n"
+                + "    .method public count(n.i32).i32 {\n"
+                + "        i.i32 :=.i32 0.i32;\n"
+                + "    Loop:\n"
+                + "        unused.i32 :=.i32 i.i32 *.i32 2.i32;\n"
+                + "        i.i32 :=.i32 i.i32 +.i32 1.i32;\n"
+                + "        if (i.i32 <.bool $1.n.i32) goto Loop;\n"
+                + "        ret.i32 i.i32;\n"
+                + "    }\n"
+                + "}\n";
+
+        String result = eliminate(code, "count");
+
+        // i is read around the loop, so its increment stays live
+        assertFalse(result, result.contains("unused.i32"));
+        assertTrue(result, result.contains("i.i32 :=.i32 i.i32 +.i32 1.i32;"));
+        assertTrue(result, result.contains("goto Loop;"));
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+package pt.up.fe.comp.optimization;
+
+import static org.junit.Assert.*;
+import static pt.up.fe.comp.optimization.OllirTestUtils.parse;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.InstructionType;
+import org.specs.comp.ollir.LiteralElement;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.ReturnInstruction;
+
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+
+public class OllirPassManagerTest {
+
+    private static final String CHAIN = "Chain {\n"
+            + "    .construct Chain().V {\n"
+            + "        invokespecial(this, \"<init>\").V;\n"
+            + "    }\n"
+            + "    .method public get().i32 {\n"
+            + "        a.i32 :=.i32 1.i32;\n"
+            + "        b.i32 :=.i32 a.i32 +.i32 2.i32;\n"
+            + "        c.i32 :=.i32 b.i32;\n"
+            + "        ret.i32 c.i32;\n"
+            + "    }\n"
+            + "}\n";
+
+    /**
+     * @return the names of the passes that ran, from the reports of their times
+     */
+    private static List<String> runPasses(Map<String, String> config) {
+        OllirPassManager passManager = new OllirPassManager(config);
+        assertEquals(List.of(), passManager.getReports());
+
+        List<Report> reports = passManager.run(parse(ControlFlowGraphTest.LOOP));
+        for (Report report : reports) {
+            assertEquals(ReportType.LOG, report.getType());
+        }
+
+        return reports.stream().map(report -> report.getMessage().split(" ")[2]).toList();
+    }
+
+    @Test
+    public void noPassesByDefault() {
+        assertEquals(List.of(), runPasses(Map.of()));
+        assertEquals(List.of(), runPasses(Map.of("optimize", "false")));
+    }
+
+    @Test
+    public void optimizeWithoutPassesRunsAll() {
+        assertEquals(List.of("constprop", "copyprop", "deadcode"), runPasses(Map.of("optimize", "true")));
+    }
+
+    @Test
+    public void passesOverrideOptimize() {
+        assertEquals(List.of("deadcode", "constprop"),
+                runPasses(Map.of("optimize", "true", "passes", "deadcode, constprop")));
+        assertEquals(List.of(), runPasses(Map.of("optimize", "true", "passes", "")));
+    }
+
+    @Test
+    public void duplicatePassesRunOnce() {
+        assertEquals(List.of("copyprop"), runPasses(Map.of("passes", "copyprop,copyprop, copyprop")));
+    }
+
+    @Test
+    public void unknownPass() {
+        OllirPassManager passManager = new OllirPassManager(Map.of("passes", "constprop,inline"));
+
+        List<Report> reports = passManager.getReports();
+        assertEquals(1, reports.size());
+        assertEquals(ReportType.ERROR, reports.get(0).getType());
+        assertTrue(reports.get(0).getMessage(), reports.get(0).getMessage().contains("'inline'"));
+    }
+
+    @Test
+    public void repeatsWhilePassesChangeMethod() {
+        ClassUnit ollirClass = parse(CHAIN);
+        new OllirPassManager(Map.of("optimize", "true")).run(ollirClass);
+
+        // Each folded value exposes the next, and every assignment ends up dead
+        Method method = ollirClass.getMethod(1);
+        assertEquals(1, method.getInstructions().size());
+        assertEquals(InstructionType.RETURN, method.getInstr(0).getInstType());
+
+        Element returned = ((ReturnInstruction) method.getInstr(0)).getOperand();
+        assertTrue(returned.isLiteral());
+        assertEquals("3", ((LiteralElement) returned).getLiteral());
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+
+
+package pt.up.fe.comp.optimization;
+
+import java.util.Map;
+
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Method;
+
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+
+/**
+ * Helpers for the tests of the passes that run over OLLIR code.
+ */
+class OllirTestUtils {
+
+    /**
+     * @return the class of the OLLIR code, with the variable tables built
+     */
+    static ClassUnit parse(String ollirCode) {
+        return new OllirResult(ollirCode, Map.of()).getOllirClass();
+    }
+
+    static Method getMethod(ClassUnit ollirClass, String name) {
+        return ollirClass.getMethods().stream()
+                .filter(method -> method.getMethodName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * @return the OLLIR code of the method as printed, from its name to the end of its body
+     */
+    static String getMethodCode(ClassUnit ollirClass, String name) {
+        String code = OllirPrinter.toOllirCode(ollirClass);
+        int start = code.indexOf(" " + name + "(");
+        int end = code.indexOf(".method", start);
+        return end < 0 ? code.substring(start) : code.substring(start, end);
+    }
+}
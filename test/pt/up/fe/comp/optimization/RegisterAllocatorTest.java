@@ -0,0 +1,154 @@
+/**
+ * Copyright 2022 SPeCS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License. under the License.
+ */
+
+package pt.up.fe.comp.optimization;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.specs.comp.ollir.Descriptor;
+import org.specs.comp.ollir.Method;
+
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+
+public class RegisterAllocatorTest {
+
+    private static final String CODE = "class Registers {\n"
+            + "    public int copy(int p) {\n"
+            + "        int a;\n"
+            + "        int b;\n"
+            + "        a = p;\n"
+            + "        b = a;\n"
+            + "        return b;\n"
+            + "    }\n"
+            + "    public int both(int p) {\n"
+            + "        int a;\n"
+            + "        int b;\n"
+            + "        a = p;\n"
+            + "        b = p;\n"
+            + "        return a + b;\n"
+            + "    }\n"
+            + "    public static void main(String[] args) {\n"
+            + "    }\n"
+            + "}\n";
+
+    private static OllirResult allocate(int maxRegisters) {
+        return TestUtils.optimize(CODE, Map.of("registerAllocation", String.valueOf(maxRegisters)));
+    }
+
+    private static Method getMethod(OllirResult result, String name) {
+        return result.getOllirClass().getMethods().stream()
+                .filter(method -> method.getMethodName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static int getRegister(Method method, String variable) {
+        return method.getVarTable().get(variable).getVirtualReg();
+    }
+
+    private static int getNumRegisters(Method method) {
+        int numRegisters = method.isStaticMethod() ? 0 : 1;
+        for (Descriptor descriptor : method.getVarTable().values()) {
+            numRegisters = Math.max(numRegisters, descriptor.getVirtualReg() + 1);
+        }
+        return numRegisters;
+    }
+
+    private static List<BitSet> graph(int numNodes, int... edges) {
+        List<BitSet> graph = new ArrayList<>();
+        for (int i = 0; i < numNodes; i++) {
+            graph.add(new BitSet());
+        }
+        for (int i = 0; i < edges.length; i += 2) {
+            graph.get(edges[i]).set(edges[i + 1]);
+            graph.get(edges[i + 1]).set(edges[i]);
+        }
+        return graph;
+    }
+
+    @Test
+    public void parametersKeepFirstRegisters() {
+        Method method = getMethod(allocate(0), "both");
+
+        assertEquals(1, getRegister(method, "p"));
+        assertTrue(getRegister(method, "a") >= 2);
+        assertTrue(getRegister(method, "b") >= 2);
+        assertEquals(0, getRegister(getMethod(allocate(0), "main"), "args"));
+    }
+
+    @Test
+    public void copySharesRegister() {
+        Method method = getMethod(allocate(0), "copy");
+
+        assertEquals(getRegister(method, "a"), getRegister(method, "b"));
+        assertEquals(3, getNumRegisters(method));
+    }
+
+    @Test
+    public void liveVariablesGetDistinctRegisters() {
+        Method method = getMethod(allocate(0), "both");
+
+        // a and b are both live when the sum is computed, and the sum may reuse either
+        assertNotEquals(getRegister(method, "a"), getRegister(method, "b"));
+        assertEquals(4, getNumRegisters(method));
+    }
+
+    @Test
+    public void fitsInRequestedRegisters() {
+        OllirResult result = allocate(4);
+        TestUtils.noErrors(result.getReports());
+        assertEquals(4, getNumRegisters(getMethod(result, "both")));
+    }
+
+    @Test
+    public void tooFewRegisters() {
+        List<Report> errors = new ArrayList<>();
+        for (Report report : allocate(3).getReports()) {
+            if (report.getType() == ReportType.ERROR) errors.add(report);
+        }
+
+        // Only both needs a fourth register
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getMessage(), errors.get(0).getMessage().contains("method both in the 3 registers"));
+    }
+
+    @Test
+    public void colorsCycleOptimistically() {
+        // Every node of a square has two neighbours, but opposite corners can share a color
+        List<BitSet> square = graph(4, 0, 1, 1, 2, 2, 3, 3, 0);
+        int[] colors = RegisterAllocator.color(square, 2);
+
+        assertNotNull(colors);
+        for (int node = 0; node < 4; node++) {
+            assertTrue(colors[node] < 2);
+            assertNotEquals(colors[node], colors[(node + 1) % 4]);
+        }
+    }
+
+    @Test
+    public void triangleNeedsThreeColors() {
+        List<BitSet> triangle = graph(3, 0, 1, 1, 2, 2, 0);
+
+        assertNull(RegisterAllocator.color(triangle, 2));
+        assertNotNull(RegisterAllocator.color(triangle, 3));
+    }
+}